@@ -1,13 +1,20 @@
 package battleship;
 
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javafx.application.Platform;
 
 public class BattleShipController {
 
     private BattleShipModel model;
     private BattleShipViewGUI viewGUI;
     private BattleShipViewCLI viewCLI;
+    private MoveJournal journal;
+    private PersistenceService persistence;
 
     public BattleShipController(BattleShipModel model) {
         this.model = model;
@@ -21,15 +28,66 @@ public class BattleShipController {
         this.viewCLI = viewCLI;
     }
 
+    /**
+     * Replace the service used for background saves and loads, for instance
+     * with one reporting back on the JavaFX application thread or one shared
+     * by many controllers
+     *
+     * @param persistence service to use
+     */
+    public void setPersistenceService(PersistenceService persistence) {
+        if (this.persistence != null) {
+            this.persistence.close();
+        }
+        this.persistence = persistence;
+    }
+
+    /**
+     * @return the persistence service, created on first use. With a GUI
+     * attached it reports back on the JavaFX application thread, so loaded
+     * games are restored on the thread which draws them
+     */
+    private PersistenceService persistence() {
+        if (persistence == null) {
+            persistence = viewGUI != null ? new PersistenceService(Platform::runLater) : new PersistenceService();
+        }
+        return persistence;
+    }
+
     /**
      * create new Default or Random game
      *
      * @param typeOfGame the type of Game
      */
     public void initialise(int typeOfGame) {
+        stopJournal();
         model.initialise(typeOfGame);
     }
 
+    /**
+     * create new Default or Random game on a board of the given size
+     *
+     * @param typeOfGame the type of Game
+     * @param geometry the width and height of the board
+     */
+    public void initialise(int typeOfGame, BoardGeometry geometry) {
+        stopJournal();
+        model.initialise(typeOfGame, geometry);
+    }
+
+    /**
+     * create new Default or Random game from a seed, so the same seed always
+     * gives the same fleet
+     *
+     * @param typeOfGame the type of Game
+     * @param geometry the width and height of the board
+     * @param seed seed of the generator used to create the fleet
+     */
+    public void initialise(int typeOfGame, BoardGeometry geometry, long seed) {
+        stopJournal();
+        model.initialise(typeOfGame, geometry, seed);
+    }
+
     /**
      * Checks if the position has already been tried it wont all the same
      * position to be attack (disabling the coordinates)
@@ -38,13 +96,15 @@ public class BattleShipController {
      * @return true if the points have been previously tried
      */
     public boolean positionTried(Coordinates points) {
-        boolean alreadyTried = false;
-        for (Coordinates c : getCoordinatesesTried()) {
-            if (c.getX() == points.getX() && c.getY() == points.getY()) {
-                alreadyTried = true;
-            }
-        }
-        return alreadyTried;
+        return model.isPositionTried(points);
+    }
+
+    /**
+     * @param points coordinates selected by user
+     * @return true if the points were attacked and hit a ship
+     */
+    public boolean isHit(Coordinates points) {
+        return model.isHit(points);
     }
 
     /**
@@ -58,26 +118,201 @@ public class BattleShipController {
     }
 
     /**
-     * Load game from text file
+     * Load game from a text file, or from a binary file if the name ends in
+     * .bsg, and wait until it has been loaded. A journal, ending in .bsj, is
+     * replayed and then carries on recording the moves that follow. With a
+     * GUI attached the load completes on the JavaFX application thread, so
+     * that thread must use loadGameAsync instead
      *
-     * @param fileName String name of the text file
+     * @param fileName String name of the file
      * @return true if file was loaded
+     * @throws IllegalStateException if called on the JavaFX application
+     * thread while a GUI is attached
      */
     public boolean loadGame(String fileName) {
+        checkNotFxThread("loadGame");
         try {
-            model.loadGame(fileName);
+            loadGameAsync(fileName).join();
             return true;
-        } catch (FileNotFoundException ex) {
-            System.out.println("File Not Found");
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof NoSuchFileException) {
+                System.out.println("File Not Found");
+            } else {
+                System.out.println("Invalid save file: " + ex.getCause().getMessage());
+            }
             return false;
         }
     }
 
     /**
-     * Save data to text file
+     * Read a save file in the background and restore it into the model on the
+     * callback executor of the persistence service. A journal is resumed
+     * straight away, as it keeps recording the live game
+     *
+     * @param fileName String name of the file
+     * @return future completed once the game has been restored
+     */
+    public CompletableFuture<Void> loadGameAsync(String fileName) {
+        stopJournal();
+        if (fileName.toLowerCase().endsWith(MoveJournal.EXTENSION)) {
+            GameEvents.LoadCompleted event = new GameEvents.LoadCompleted();
+            event.begin();
+            try {
+                journal = MoveJournal.resume(model, Paths.get(fileName));
+                event.finish(Paths.get(fileName), "journal");
+                return CompletableFuture.completedFuture(null);
+            } catch (IOException ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
+        return persistence().load(fileName).thenAccept(this::restoreGame);
+    }
+
+    /**
+     * Replace the game with one already read from a save file
+     *
+     * @param snapshot game to restore into the model
+     */
+    public void restoreGame(GameSnapshot snapshot) {
+        stopJournal();
+        snapshot.restoreInto(model);
+    }
+
+    /**
+     * Replace the game with one resumed from a journal into another model,
+     * and keep recording the moves that follow through that journal
+     *
+     * @param snapshot game held by the journal's model
+     * @param resumed journal to move onto this controller's model
      */
-    public void saveGame() {
-        model.saveGame();
+    public void restoreGame(GameSnapshot snapshot, MoveJournal resumed) {
+        restoreGame(snapshot);
+        resumed.transferTo(model);
+        journal = resumed;
+    }
+
+    /**
+     * Save data to text file in the background, reporting a failure in an
+     * alert when a GUI is attached and on the console otherwise
+     *
+     * @return future completed once the file has been written
+     */
+    public CompletableFuture<Void> saveGame() {
+        CompletableFuture<Void> save = saveGameAsync("myfile.txt");
+        save.whenComplete((result, ex) -> {
+            if (ex != null) {
+                reportFailure("Could not save game", ex);
+            }
+        });
+        return save;
+    }
+
+    /**
+     * Save data to a text file, or to a binary file if the name ends in .bsg.
+     * A name ending in .bsj starts a journal which appends every following
+     * move instead of rewriting the file. Waits until the file has been
+     * written, so the JavaFX application thread must use saveGameAsync
+     * instead while a GUI is attached
+     *
+     * @param fileName String name of the file
+     * @return true if file was saved
+     * @throws IllegalStateException if called on the JavaFX application
+     * thread while a GUI is attached
+     */
+    public boolean saveGame(String fileName) {
+        checkNotFxThread("saveGame");
+        try {
+            saveGameAsync(fileName).join();
+            return true;
+        } catch (CompletionException ex) {
+            System.out.println("Could not save file: " + ex.getCause().getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Snapshot the game and write it in the background. Repeated saves to the
+     * same file before it is written are merged into one write. A journal is
+     * started straight away, as it records the live game
+     *
+     * @param fileName String name of the file
+     * @return future completed once the file has been written
+     */
+    public CompletableFuture<Void> saveGameAsync(String fileName) {
+        if (fileName.toLowerCase().endsWith(MoveJournal.EXTENSION)) {
+            stopJournal();
+            GameEvents.SaveCompleted event = new GameEvents.SaveCompleted();
+            event.begin();
+            try {
+                journal = MoveJournal.start(model, Paths.get(fileName));
+                event.finish(Paths.get(fileName), "journal");
+                return CompletableFuture.completedFuture(null);
+            } catch (IOException ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
+        return persistence().save(model, fileName);
+    }
+
+    /**
+     * Refuse to wait for a save or load on the JavaFX application thread,
+     * which would never finish while the GUI's futures are completed on it.
+     * The toolkit is only asked once a GUI is attached, so the console and
+     * server never start it
+     *
+     * @param method name of the blocking method called
+     */
+    private void checkNotFxThread(String method) {
+        if (viewGUI != null && Platform.isFxApplicationThread()) {
+            throw new IllegalStateException(method + " would block the JavaFX application thread; use "
+                    + method + "Async");
+        }
+    }
+
+    /**
+     * Tell the player about a background save or load which failed
+     *
+     * @param header what failed
+     * @param ex cause of the failure
+     */
+    private void reportFailure(String header, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (viewGUI != null) {
+            Platform.runLater(() -> viewGUI.showError(header, cause));
+        } else {
+            System.out.println(header + ": " + cause.getMessage());
+        }
+    }
+
+    /**
+     * Flush and close the journal recording the current game, if there is one
+     */
+    public void stopJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException ex) {
+                System.out.println("Could not close journal: " + ex.getMessage());
+            }
+            journal = null;
+        }
+    }
+
+    /**
+     * Close the journal and finish any save still being written
+     */
+    public void shutdown() {
+        stopJournal();
+        if (persistence != null) {
+            persistence.close();
+        }
+    }
+
+    /**
+     * @return the width and height of the board
+     */
+    public BoardGeometry getGeometry() {
+        return model.getGeometry();
     }
 
     /**
@@ -98,25 +333,13 @@ public class BattleShipController {
      * @return true if all ships are sunk
      */
     public boolean winGame() {
-        int counter = 0;
-        for (Ship ship : getShipList()) {
-            if (!ship.isSunk()) {
-                counter += 1;
-            }
-        }
-        return counter == 0 ? true : false;
+        return model.isGameOver();
     }
 
     /**
      * @return the number of not sunk ships
      */
     public int numberOfActiveShips() {
-        int counter = 0;
-        for (Ship ship : getShipList()) {
-            if (!ship.isSunk()) {
-                counter += 1;
-            }
-        }
-        return counter;
+        return model.getRemainingShips();
     }
 }
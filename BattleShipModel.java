@@ -1,29 +1,40 @@
 package battleship;
 
-import java.io.BufferedWriter;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Observable;
-import java.util.Random;
-import java.util.Scanner;
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.random.RandomGenerator;
 
-public class BattleShipModel extends Observable {
+public class BattleShipModel {
 
     private List<Ship> shipList = new ArrayList<>();
     private List<Coordinates> coordinatesesTried = new ArrayList<>();
+    private Board board = new Board();
+    private PlacementEngine placementEngine = PlacementEngine.getInstance();
+    private RandomGenerator random = new SplittableRandom();
+    private int remainingShips, remainingCells;
+    // Zobrist hashes of the shots and their results, and of the fleet layout
+    private long stateHash, fleetHash;
+    private Ship lastSunk;
+    private final GameEventBus events = new GameEventBus();
+    private BoardPool boardPool;
+    // whole fleet attempts of the last fleet placed by this model
+    private int placementAttempts;
 
     public BattleShipModel() {
     }
 
     /**
      * Clear any instance of any previous games and creates a new Default or
-     * Random game depending on the typeOfGame value
+     * Random game depending on the typeOfGame value on a board of the current
+     * geometry
      *
      * @param typeOfGame the type of Game
      * @pre. typeOfGame is equal to 1 or 2
@@ -31,17 +42,162 @@ public class BattleShipModel extends Observable {
      * @return void
      */
     public void initialise(int typeOfGame) {
+        initialise(typeOfGame, board.getGeometry());
+    }
+
+    /**
+     * Clear any instance of any previous games and creates a new Default or
+     * Random game depending on the typeOfGame value on a board of the given
+     * geometry. With a board pool the fleet is taken ready placed from the
+     * pool, and only created here if the pool has none left
+     *
+     * @param typeOfGame the type of Game
+     * @param geometry the width and height of the board
+     * @pre. typeOfGame is equal to 1 or 2
+     * @post. Default or Random game is started depending on typeOfGame value
+     * @return void
+     */
+    public void initialise(int typeOfGame, BoardGeometry geometry) {
+        newGame(typeOfGame, geometry, boardPool);
+    }
+
+    private void newGame(int typeOfGame, BoardGeometry geometry, BoardPool pool) {
+        GameEvents.GameInitialised event = new GameEvents.GameInitialised();
+        event.begin();
+        long start = GameMetrics.start();
         shipList.clear();
         coordinatesesTried.clear();
-        createShips(typeOfGame);
+        setGeometry(geometry);
+        countFleet();
+        placementAttempts = 0;
+        List<List<Coordinates>> fleet = pool != null ? pool.take(typeOfGame, geometry) : null;
+        if (fleet != null) {
+            placeFleet(fleet);
+        } else {
+            createShips(typeOfGame);
+        }
+        GameMetrics.record(GameMetrics.Operation.INITIALISE, start);
+        commit(event, typeOfGame, fleet != null);
+        events.gameReset(geometry);
     }
 
     /**
-     * Creates ships depending on the type of Game. Both type of games will
-     * contain one ship each of length 3,4 & 5 Default game will contain two
-     * ships of length 2. Random game will contain a random number of ships
-     * between 0 and 4 of length 1 ships and a random number of ships between 0
-     * and 3 of length 2
+     * Clear any instance of any previous games and creates a new Default or
+     * Random game from the given seed. The same seed, type of game and
+     * geometry always give the same fleet, and the games which follow carry
+     * on from the seeded sequence
+     *
+     * @param typeOfGame the type of Game
+     * @param geometry the width and height of the board
+     * @param seed seed of the generator used to create the fleet
+     * @pre. typeOfGame is equal to 1 or 2
+     * @post. Default or Random game is started depending on typeOfGame value
+     * @return void
+     */
+    public void initialise(int typeOfGame, BoardGeometry geometry, long seed) {
+        random = new SplittableRandom(seed);
+        // pooled fleets come from the pool's own generator, not the seed
+        newGame(typeOfGame, geometry, null);
+    }
+
+    /**
+     * Clear any instance of any previous games and creates a game with one
+     * ship of each of the given sizes on a board of the given geometry
+     *
+     * @param shipSizes the size of each ship in the fleet
+     * @param geometry the width and height of the board
+     * @throws IllegalStateException if the ships cannot fit on the board
+     * @return void
+     */
+    public void initialise(int[] shipSizes, BoardGeometry geometry) {
+        GameEvents.GameInitialised event = new GameEvents.GameInitialised();
+        event.begin();
+        long start = GameMetrics.start();
+        shipList.clear();
+        coordinatesesTried.clear();
+        setGeometry(geometry);
+        placementAttempts = 0;
+        long placementStart = GameMetrics.start();
+        List<List<Coordinates>> fleet = placementEngine.placeFleet(shipSizes, random, this::setPlacementAttempts);
+        GameMetrics.record(GameMetrics.Operation.PLACEMENT, placementStart);
+        placeFleet(fleet);
+        GameMetrics.record(GameMetrics.Operation.INITIALISE, start);
+        commit(event, 0, false);
+        events.gameReset(geometry);
+    }
+
+    private void setPlacementAttempts(int attempts) {
+        placementAttempts = attempts;
+    }
+
+    /**
+     * Commit a GameInitialised event if flight recording wants it
+     *
+     * @param event event begun before the game was set up
+     * @param typeOfGame the type of Game, 0 for a fleet of given sizes
+     * @param pooled true if the fleet was taken from the board pool
+     */
+    private void commit(GameEvents.GameInitialised event, int typeOfGame, boolean pooled) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.typeOfGame = typeOfGame;
+            event.board = getGeometry().toString();
+            event.fleetSize = shipList.size();
+            event.placementAttempts = placementAttempts;
+            event.pooled = pooled;
+            event.commit();
+        }
+    }
+
+    /**
+     * @param seed seed of the generator used to place the fleet
+     * @see #initialise(int[], BoardGeometry)
+     */
+    public void initialise(int[] shipSizes, BoardGeometry geometry, long seed) {
+        random = new SplittableRandom(seed);
+        initialise(shipSizes, geometry);
+    }
+
+    /**
+     * Take the fleets of new Default and Random games from a pool of fleets
+     * placed in the background
+     *
+     * @param boardPool pool to take fleets from, or null to always place
+     * fleets on the calling thread
+     */
+    public void setBoardPool(BoardPool boardPool) {
+        this.boardPool = boardPool;
+    }
+
+    /**
+     * Use the given generator for every fleet created from now on, such as
+     * one split from a parent generator for each worker thread
+     *
+     * @param random source of randomness, only used by this model's thread
+     */
+    public void setRandom(RandomGenerator random) {
+        this.random = random;
+    }
+
+    /**
+     * Use a board of the given geometry, keeping the existing board if the
+     * geometry has not changed, and reset both hashes to an empty board
+     *
+     * @param geometry the width and height of the board
+     */
+    private void setGeometry(BoardGeometry geometry) {
+        if (geometry.equals(board.getGeometry())) {
+            board.clear();
+        } else {
+            board = new Board(geometry);
+            placementEngine = PlacementEngine.forGeometry(geometry);
+        }
+        stateHash = Zobrist.board(geometry);
+        fleetHash = stateHash;
+    }
+
+    /**
+     * Creates ships depending on the type of Game and adds them to the board
      *
      * @param typeOfGame the type of game
      * @pre. typeOfGame is equal to 1 or 2
@@ -49,53 +205,119 @@ public class BattleShipModel extends Observable {
      * @return void
      */
     private void createShips(int typeOfGame) {
-        List<Ship> ships = new ArrayList<>();
+        long start = GameMetrics.start();
+        List<List<Coordinates>> fleet = createFleet(typeOfGame, placementEngine, random, this::setPlacementAttempts);
+        GameMetrics.record(GameMetrics.Operation.PLACEMENT, start);
+        placeFleet(fleet);
+    }
+
+    /**
+     * Creates a fleet depending on the type of Game. Both type of games will
+     * contain one ship each of length 3,4 & 5 Default game will contain two
+     * ships of length 2. Random game will contain a random number of ships
+     * between 0 and 4 of length 1 ships and a random number of ships between 0
+     * and 3 of length 2. Only fleets of 3 to 10 ships are placed, any other
+     * fleet is left empty
+     *
+     * @param typeOfGame the type of game
+     * @param engine placement engine of the board
+     * @param random source of randomness
+     * @return coordinates of each ship of the fleet
+     * @throws IllegalStateException if the ships cannot fit on the board
+     */
+    static List<List<Coordinates>> createFleet(int typeOfGame, PlacementEngine engine, RandomGenerator random) {
+        return createFleet(typeOfGame, engine, random, attempts -> {
+        });
+    }
+
+    /**
+     * @param attempts told how many times the whole fleet was placed before
+     * it fitted
+     * @see #createFleet(int, PlacementEngine, RandomGenerator)
+     */
+    static List<List<Coordinates>> createFleet(int typeOfGame, PlacementEngine engine, RandomGenerator random,
+            IntConsumer attempts) {
+        List<Integer> sizes = new ArrayList<>();
 
         for (int i = 3; i < 6; i++) {
-            ships.add(new Ship(i));
+            sizes.add(i);
         }
 
         if (typeOfGame == 1) {//Default Game
             for (int i = 0; i < 2; i++) {
-                ships.add(new Ship(2));
+                sizes.add(2);
             }
         } else if (typeOfGame == 2) {//Random Game
-            Random random = new Random();
             for (int i = 0; i < random.nextInt(3); i++) {
-                ships.add(new Ship(2));
+                sizes.add(2);
             }
 
             for (int i = 0; i < random.nextInt(4); i++) {
-                ships.add(new Ship(1));
+                sizes.add(1);
             }
         }
 
-        addToGrid(ships);
+        if (sizes.size() < 3 || sizes.size() > 10) {
+            return new ArrayList<>();
+        }
+        int[] lengths = new int[sizes.size()];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = sizes.get(i);
+        }
+        return engine.placeFleet(lengths, random, attempts);
     }
 
     /**
-     * The ships in List ships will be assigned coordinates and added to the
-     * board
+     * Add ships at the given positions to the board
      *
-     * @param ships list of ships to be added to the board
-     * @pre. ships Array List size is greater than 3 and less than 10
-     * @post. ships Array List is added to the shipList Array List
-     * @return void
+     * @param fleet coordinates of each ship
      */
-    private void addToGrid(List<Ship> ships) {
-        for (Ship ship : ships) {
-            if (ships.size() >= 3 && ships.size() <= 10) {
-                ship.setPosition(shipList);
-                shipList.add(ship);
+    private void placeFleet(List<List<Coordinates>> fleet) {
+        for (List<Coordinates> position : fleet) {
+            addShip(position);
+        }
+        countFleet();
+    }
+
+    /**
+     * Add one ship to the board and to the fleet hash
+     *
+     * @param position coordinates of each segment of the ship
+     */
+    private void addShip(List<Coordinates> position) {
+        Ship ship = new Ship(position.size());
+        ship.placeAt(position);
+        board.addShip(shipList.size(), ship);
+        shipList.add(ship);
+        fleetHash ^= Zobrist.ship(board.getGeometry(), position);
+    }
+
+    /**
+     * Recount the ships and ship cells which have not yet been hit. This is
+     * only done when a fleet is created or loaded, attack keeps the counts up
+     * to date afterwards
+     */
+    private void countFleet() {
+        remainingShips = 0;
+        remainingCells = 0;
+        lastSunk = null;
+        for (Ship ship : shipList) {
+            if (!ship.isSunk()) {
+                remainingShips++;
             }
+            remainingCells += Math.max(0, ship.getSize() - ship.getHits());
         }
     }
 
     /**
      * User selects coordinates on the board and this method checks if there is
-     * a ship in that position. If there is a ship occupying that space then the
-     * ship hit counter will increment. The try will be added to the
-     * coordinatesesTried List for save/load game
+     * a ship in that position using the board's occupancy bitboard. If there is
+     * a ship occupying that space then the ship hit counter will increment,
+     * along with the remaining ship and cell counts. Attacking a cell a second
+     * time does not hit the ship again. The hit is recorded on the board, the
+     * coordinates themselves are never modified. The try will be added to the
+     * coordinatesesTried List for save/load game and the listeners are told
+     * which cell was resolved
      *
      * @param points coordinates selected by the user to check if a ship exists
      * in that position
@@ -104,24 +326,141 @@ public class BattleShipModel extends Observable {
      * @return boolean
      */
     public boolean attack(Coordinates points) {
+        long start = GameMetrics.start();
         boolean hit = false;
-        for (int i = 0; i < shipList.size(); i++) {
-            Ship ship = shipList.get(i);
-            for (int j = 0; j < ship.getSize(); j++) {
-                if (ship.getPosition().get(j).getX() == points.getX() && ship.getPosition().get(j).getY() == points.getY()) {
-                    hit = true;
+        int cell = -1;
+        lastSunk = null;
+        if (board.contains(points.getX(), points.getY())) {
+            cell = board.index(points.getX(), points.getY());
+            boolean firstShot = !board.isShot(cell);
+            board.markShot(cell);
+            int shipId = board.shipAt(cell);
+            if (firstShot) {
+                stateHash ^= Zobrist.shot(cell, shipId >= 0);
+            }
+            if (shipId >= 0) {
+                hit = true;
+                Ship ship = shipList.get(shipId);
+                if (firstShot) {
                     ship.setHits();
-                    points.setHit(hit);
-                    ship.getPosition().get(j).setHit(hit);
+                    remainingCells--;
+                    if (ship.isSunk()) {
+                        remainingShips--;
+                        lastSunk = ship;
+                    }
                 }
             }
         }
         coordinatesesTried.add(points);
-        setChanged();
-        notifyObservers(hit);
+        GameMetrics.record(GameMetrics.Operation.ATTACK, start);
+        boolean won = lastSunk != null && remainingShips == 0;
+        events.shotResolved(points, cell, hit, lastSunk, won, coordinatesesTried.size());
+        if (GameEvents.isShotResolvedEnabled()) {
+            GameEvents.ShotResolved event = new GameEvents.ShotResolved();
+            event.x = points.getX();
+            event.y = points.getY();
+            event.hit = hit;
+            event.moves = coordinatesesTried.size();
+            event.commit();
+        }
+        if (lastSunk != null) {
+            GameEvents.ShipSunk sunkEvent = new GameEvents.ShipSunk();
+            if (sunkEvent.isEnabled()) {
+                sunkEvent.size = lastSunk.getSize();
+                sunkEvent.moves = coordinatesesTried.size();
+                sunkEvent.commit();
+            }
+            if (won) {
+                GameEvents.GameWon wonEvent = new GameEvents.GameWon();
+                if (wonEvent.isEnabled()) {
+                    wonEvent.moves = coordinatesesTried.size();
+                    wonEvent.commit();
+                }
+            }
+        }
         return hit;
     }
 
+    /**
+     * Checks the shot mask to see if the coordinates have already been
+     * attacked
+     *
+     * @param points coordinates to check
+     * @return true if the coordinates have already been attacked
+     */
+    public boolean isPositionTried(Coordinates points) {
+        return board.contains(points.getX(), points.getY())
+                && board.isShot(board.index(points.getX(), points.getY()));
+    }
+
+    /**
+     * @return number of ships which have not been sunk
+     */
+    public int getRemainingShips() {
+        return remainingShips;
+    }
+
+    /**
+     * @return number of ship cells which have not been hit
+     */
+    public int getRemainingCells() {
+        return remainingCells;
+    }
+
+    /**
+     * Zobrist hash of what a player can see: the size of the board, which
+     * cells have been shot and whether each shot hit. Two games with the same
+     * shots and results have the same hash whatever order they were played
+     * in. Kept up to date by attack, so reading it is free
+     *
+     * @return hash of the visible state
+     */
+    public long getStateHash() {
+        return stateHash;
+    }
+
+    /**
+     * @return Zobrist hash of the size of the board and the cells and bow of
+     * every ship, equal for any two games with the same fleet layout
+     */
+    public long getFleetHash() {
+        return fleetHash;
+    }
+
+    /**
+     * @return the ship sunk by the last attack or null if it did not sink one
+     */
+    public Ship getLastSunk() {
+        return lastSunk;
+    }
+
+    /**
+     * @return true if every ship has been sunk
+     */
+    public boolean isGameOver() {
+        return remainingShips == 0;
+    }
+
+    /**
+     * @return the width and height of the board
+     */
+    public BoardGeometry getGeometry() {
+        return board.getGeometry();
+    }
+
+    /**
+     * @param points coordinates to check
+     * @return true if the coordinates have been attacked and a ship occupies
+     * them
+     */
+    public boolean isHit(Coordinates points) {
+        if (!board.contains(points.getX(), points.getY())) {
+            return false;
+        }
+        int cell = board.index(points.getX(), points.getY());
+        return board.isShot(cell) && board.isOccupied(cell);
+    }
+
     /**
      * @return List shipList
      */
@@ -130,14 +469,14 @@ public class BattleShipModel extends Observable {
     }
 
     /**
-     * @return List coordinatesesTried
+     * @return List coordinatesesTried, the ordered history of moves
      */
     public List<Coordinates> getCoordinatesesTried() {
         return coordinatesesTried;
     }
 
     /**
-     * Exports the shipList and coordinatesesTried List to a text file
+     * Exports the shipList and coordinatesesTried List to myfile.txt
      *
      * @pre. shipList Array List is not null
      * @post. shipList and coordinatesesTried Array List printed out as a text
@@ -145,103 +484,152 @@ public class BattleShipModel extends Observable {
      * @return void
      */
     public void saveGame() {
+        saveGame("myfile.txt");
+    }
+
+    /**
+     * Exports the shipList and coordinatesesTried List to a text file
+     *
+     * @param fileName the name of the file to be saved to
+     * @pre. shipList Array List is not null
+     * @post. shipList and coordinatesesTried Array List printed out as a text
+     * file
+     * @return void
+     */
+    public void saveGame(String fileName) {
+        try {
+            writeGame(fileName);
+        } catch (IOException ex) {
+            Logger.getLogger(BattleShipModel.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Exports the shipList and coordinatesesTried List to a text file,
+     * reporting any failure to the caller
+     *
+     * @param fileName the name of the file to be saved to
+     * @throws IOException if the file cannot be written
+     */
+    public void writeGame(String fileName) throws IOException {
+        long start = GameMetrics.start();
         try {
-            BufferedWriter fileOut = new BufferedWriter(new FileWriter("myfile.txt"));
-            StringBuilder stringBuilder = new StringBuilder();
+            List<List<Coordinates>> fleet = new ArrayList<>(shipList.size());
             for (Ship ship : shipList) {
-                // convert ships to String builder to be exported as a text file 
-                stringBuilder.append("Ship" + System.getProperty("line.separator"));
-                for (int i = 0; i < ship.getPosition().size(); i++) {
-                    stringBuilder.append("( " + ship.getPosition().get(i).getX() + " , " + ship.getPosition().get(i).getY() + " ) " + ship.getPosition().get(i).isHit() + System.getProperty("line.separator"));
-                }
-                stringBuilder.append("END" + System.getProperty("line.separator"));
-                fileOut.write(stringBuilder.toString());
-                stringBuilder.setLength(0);
+                fleet.add(ship.getPosition());
             }
+            TextGameWriter.write(getGeometry(), fleet, coordinatesesTried, fileName);
+        } finally {
+            GameMetrics.record(GameMetrics.Operation.SAVE, start);
+        }
+    }
 
-            stringBuilder.append(System.getProperty("line.separator") + "Coordinates" + System.getProperty("line.separator"));
-            for (Coordinates coordinates : coordinatesesTried) {
-                // convert coordinates to String builder to be exported as a text file
-                if (!coordinates.isHit()) {
-                    stringBuilder.append("( " + coordinates.getX() + " , " + coordinates.getY() + " ) " + coordinates.isHit() + System.getProperty("line.separator"));
-                    fileOut.write(stringBuilder.toString());
-                    stringBuilder.setLength(0);
-                }
-            }
-            fileOut.close();
-        } catch (IOException ex) {
-            Logger.getLogger(BattleShipModel.class.getName()).log(Level.SEVERE, null, ex);
+    /**
+     * Exports the fleet, shot bitmap and ordered move history to a compact
+     * binary file
+     *
+     * @param fileName the name of the file to be saved to
+     * @throws IOException if the file cannot be written
+     */
+    public void saveBinary(String fileName) throws IOException {
+        long start = GameMetrics.start();
+        try {
+            BinaryGameFormat.write(this, Paths.get(fileName));
+        } finally {
+            GameMetrics.record(GameMetrics.Operation.SAVE, start);
+        }
+    }
+
+    /**
+     * Clears any previous progress of a game and loads it from a binary file
+     * through a memory mapped buffer
+     *
+     * @param fileName the name of the file to be loaded from
+     * @throws IOException if the file cannot be read or is not a valid save
+     */
+    public void loadBinary(String fileName) throws IOException {
+        long start = GameMetrics.start();
+        try {
+            BinaryGameFormat.read(Paths.get(fileName), this);
+        } finally {
+            GameMetrics.record(GameMetrics.Operation.LOAD, start);
         }
     }
 
     /**
      * Clears any previous progress of a game and loads the data from a text
-     * file and populates the Lists shipList and coordinatesesTried
+     * file and populates the Lists shipList and coordinatesesTried. Files
+     * without a Board line are loaded onto a 10x10 board. The file is parsed
+     * in a single streaming pass
      *
      * @param fileName the name of the file to be loaded from
-     * @throws FileNotFoundException
+     * @throws GameFileException if the file is not a valid save, giving the
+     * line and column of the error
+     * @throws IOException if the file cannot be read
      * @pre. shipList and coordinatesesTried Array List is null
      * @post. shipList and coordinatesesTried Array List populated by loaded
      * text file
      * @return void
      */
-    public void loadGame(String fileName) throws FileNotFoundException {
-        shipList.clear();
-        coordinatesesTried.clear();
-
-        Scanner scan = new Scanner(new FileInputStream(fileName));
-        while (scan.hasNext()) {
-            String name = scan.next();
-            if (!name.equals("Coordinates")) {
-                shipList.add(importShips(scan));
-            } else {
-                importCoordinates(coordinatesesTried, scan);
-            }
+    public void loadGame(String fileName) throws IOException {
+        long start = GameMetrics.start();
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            new TextGameParser(channel).parse(this);
+        } finally {
+            GameMetrics.record(GameMetrics.Operation.LOAD, start);
         }
     }
 
     /**
-     * Import ships and coordinates of ships from text file and create ship
-     * objects
+     * Clears any previous progress of a game and restores a game from its
+     * fleet layout and ordered move history. The hits on each ship are worked
+     * out by replaying the moves against the board. Listeners receive one
+     * gameReset for the whole game rather than an event per move
      *
-     * @param scan read input from a text file
-     * @pre. text file contains ships in the correct format
-     * @post. create ships from the text file and add them to shipList
-     * @return Ship
+     * @param geometry the width and height of the board
+     * @param fleet the coordinates of each ship
+     * @param moves every coordinate attacked, in the order they were attacked
+     * @post. shipList and coordinatesesTried Array List populated from the
+     * fleet and moves
+     * @return void
      */
-    private Ship importShips(Scanner scan) {
-        List<Coordinates> position = new ArrayList<>();
-        int hitCounter = 0;
-        importCoordinates(position, scan);
-        for (int i = 0; i < position.size(); i++) {
-            if (position.get(i).isHit()) {
-                hitCounter++;
-                coordinatesesTried.add(position.get(i));
+    public void restoreGame(BoardGeometry geometry, List<List<Coordinates>> fleet, List<Coordinates> moves) {
+        shipList.clear();
+        coordinatesesTried.clear();
+        setGeometry(geometry);
+        for (List<Coordinates> position : fleet) {
+            addShip(position);
+        }
+        for (Coordinates points : moves) {
+            if (board.contains(points.getX(), points.getY())) {
+                int cell = board.index(points.getX(), points.getY());
+                int shipId = board.shipAt(cell);
+                if (!board.isShot(cell)) {
+                    if (shipId >= 0) {
+                        shipList.get(shipId).setHits();
+                    }
+                    stateHash ^= Zobrist.shot(cell, shipId >= 0);
+                }
+                board.markShot(cell);
             }
+            coordinatesesTried.add(points);
         }
-        Ship ship = new Ship(position.size(), hitCounter, position, position.size() == hitCounter);
-        return ship;
+        countFleet();
+        events.gameReset(geometry);
     }
 
     /**
-     * Import coordinates from text file and create coordinates objects
-     *
-     * @param position List of coordinates
-     * @param scan read input from a text file
-     * @pre. text file contains coordinates in the correct format
-     * @post. create coordinates and add them to position Array List
-     * @return void
+     * @param listener listener to receive the events of every game played
+     * on this model
      */
-    private void importCoordinates(List<Coordinates> position, Scanner scan) {
-        if (scan.hasNext() && !scan.next().equals("END")) {
-            int x = scan.nextInt();
-            scan.next();
-            int y = scan.nextInt();
-            scan.next();
-            boolean isShot = scan.nextBoolean();
-            Coordinates coordinates = new Coordinates(x, y, isShot);
-            position.add(coordinates);
-            importCoordinates(position, scan);
-        }
+    public void addGameListener(GameListener listener) {
+        events.addListener(listener);
+    }
+
+    /**
+     * @param listener listener to stop sending events to
+     */
+    public void removeGameListener(GameListener listener) {
+        events.removeListener(listener);
     }
 }
@@ -1,24 +1,38 @@
 package battleship;
 
-import java.util.Arrays;
-import java.util.Observable;
-import java.util.Observer;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 
-public class BattleShipViewCLI implements Observer {
+public class BattleShipViewCLI implements GameListener {
 
-    private static final int ROWSIZE = 10;
-    private static final int COLUMNSIZE = 10;
-    private static final String EMPTY = ".", SHOT = "X", MISS = "M";
+    private static final char EMPTY = '.', SHOT = 'X', MISS = 'M';
 
-    private String[][] grid = new String[ROWSIZE][COLUMNSIZE];
-    private String[] yValues = new String[]{"A", "B", "C", "D", "E", "F", "G", "H", "I", "J"};
+    private BoardGeometry geometry;
+    private final TerminalRenderer renderer;
     private boolean hit;
     private Coordinates attackCoordinates;
 
     private BattleShipController controller;
     private BattleShipModel model;
 
+    public BattleShipViewCLI() {
+        this(BoardGeometry.DEFAULT);
+    }
+
+    public BattleShipViewCLI(BoardGeometry geometry) {
+        this(geometry, false);
+    }
+
+    /**
+     * @param geometry the width and height of new boards
+     * @param ansi true to redraw only the changed cells of the grid using
+     * ANSI escape codes
+     */
+    public BattleShipViewCLI(BoardGeometry geometry, boolean ansi) {
+        this.geometry = geometry;
+        this.renderer = new TerminalRenderer(System.out, ansi);
+    }
+
     /**
      * Start new CLI game
      */
@@ -27,7 +41,7 @@ public class BattleShipViewCLI implements Observer {
         model = new BattleShipModel();
         controller = new BattleShipController(model);
         controller.setViewCLI(this);
-        model.addObserver(this);
+        model.addGameListener(this);
 
         //select type of game
         int option = -1;
@@ -39,14 +53,12 @@ public class BattleShipViewCLI implements Observer {
             option = kb.nextInt();
             switch (option) {
                 case 1:
-                    controller.initialise(1);
-                    createGrid();
+                    controller.initialise(1, geometry);
                     printGrid();
                     validOption = true;
                     break;
                 case 2:
-                    controller.initialise(2);
-                    createGrid();
+                    controller.initialise(2, geometry);
                     printGrid();
                     validOption = true;
                     break;
@@ -65,10 +77,9 @@ public class BattleShipViewCLI implements Observer {
             switch (option) {
                 case 1:
                     System.out.println("Select attack Coordinates");
-                    String point = kb.next();
-                    if (point.length() >= 2 && point.length() <= 3) {
-                        String stringY = point.substring(0, 1).toUpperCase();
-                        setAttackCoordinates(new Coordinates((Integer.parseInt(point.substring(1, point.length())) - 1), Arrays.asList(yValues).indexOf(stringY)));
+                    Coordinates point = controller.getGeometry().parseCell(kb.next());
+                    if (point != null) {
+                        setAttackCoordinates(point);
                         if (!controller.positionTried(getAttackCoordinates())) {
                             controller.attack(getAttackCoordinates());
                             if (controller.winGame()) {
@@ -82,13 +93,11 @@ public class BattleShipViewCLI implements Observer {
                     }
                     break;
                 case 2:
-                    controller.initialise(1);
-                    createGrid();
+                    controller.initialise(1, geometry);
                     printGrid();
                     break;
                 case 3:
-                    controller.initialise(2);
-                    createGrid();
+                    controller.initialise(2, geometry);
                     printGrid();
                     break;
                 case 4:
@@ -99,12 +108,21 @@ public class BattleShipViewCLI implements Observer {
                     break;
                 case 5:
                     System.out.println("save to file");
-                    controller.saveGame();
+                    reportSave(controller.saveGameAsync("myfile.txt"));
                     break;
                 case 6:
                     printGrid();
                     break;
+                case 7:
+                    System.out.println("save to binary file");
+                    reportSave(controller.saveGameAsync("myfile" + BinaryGameFormat.EXTENSION));
+                    break;
+                case 8:
+                    System.out.println("recording to journal file");
+                    controller.saveGame("myfile" + MoveJournal.EXTENSION);
+                    break;
                 case 0:
+                    renderer.close();
                     System.out.println("Goodbye");
                     break;
                 default:
@@ -112,6 +130,20 @@ public class BattleShipViewCLI implements Observer {
                     break;
             }
         }
+        controller.shutdown();
+    }
+
+    /**
+     * Print a message once a background save has finished
+     *
+     * @param save future of the save
+     */
+    private void reportSave(CompletableFuture<Void> save) {
+        save.whenComplete((result, ex) -> {
+            if (ex != null) {
+                System.out.println("Could not save file: " + ex.getMessage());
+            }
+        });
     }
 
     /**
@@ -125,98 +157,90 @@ public class BattleShipViewCLI implements Observer {
         System.out.println("4: Load file");
         System.out.println("5: Save to file");
         System.out.println("6: Print Grid");
+        System.out.println("7: Save to binary file");
+        System.out.println("8: Record moves to journal file");
         System.out.println("0: Quit Program \n");
     }
 
     /**
-     * Prompt user to enter name of text file and return true text file exists.
+     * Prompt user to enter name of a txt, bsg or bsj file and return true if
+     * the file exists.
      *
-     * @return true if text file exists
+     * @return true if the file exists
      */
     private boolean loadGame() {
         Scanner kb = new Scanner(System.in);
         Boolean validInput = false;
         String fileName = " ";
         while (!validInput) {
-            System.out.println("Enter a txt file ");
+            System.out.println("Enter a txt, bsg or bsj file ");
             fileName = kb.next();
             if (fileName.contains(".")) {
-                if (fileName.substring(fileName.lastIndexOf(".") + 1).equals("txt")) {
+                String extension = fileName.substring(fileName.lastIndexOf(".") + 1);
+                if (extension.equals("txt") || extension.equals("bsg") || extension.equals("bsj")) {
                     validInput = true;
                 }
             }
         }
         boolean validFile = controller.loadGame(fileName);
         if (validFile) {
-            populateLoadGame();
+            printGrid();
         }
         return validFile;
     }
 
     /**
-     * Create 10x10 grid and assign the EMPTY value to each element
+     * Create a grid the size of the current board and assign the EMPTY value
+     * to each element
      */
     private void createGrid() {
-        for (int row = 0; row < ROWSIZE; row++) {
-            for (int column = 0; column < COLUMNSIZE; column++) {
-                grid[column][row] = EMPTY;
-            }
-        }
+        renderer.reset(controller.getGeometry(), EMPTY);
     }
 
     /**
-     * Print the entire grid
+     * Print the grid, or only its changed cells in ANSI mode, in a single
+     * write
      */
     private void printGrid() {
-        System.out.print("  ");
-        for (int i = 1; i < 11; i++) {
-            System.out.print(i + " ");
-        }
-        for (int row = 0; row < ROWSIZE; row++) {
-            System.out.print("\n" + yValues[row] + " ");
-            for (int column = 0; column < COLUMNSIZE; column++) {
-                System.out.print(grid[column][row] + " ");
-            }
-        }
-        System.out.println(" ");
+        renderer.render();
     }
 
     /**
-     * Populate the grid with text file data. If coordinate tried then the grid
-     * position will be assigned a string value of X for hit and M for miss
+     * Populate the grid with the game held by the model. If coordinate tried
+     * then the grid position will be assigned a string value of X for hit and
+     * M for miss
      */
-    private void populateLoadGame() {
+    private void populateGrid() {
         createGrid();
+        BoardGeometry current = controller.getGeometry();
         if (controller.getCoordinatesesTried() != null) {
             for (Coordinates c : controller.getCoordinatesesTried()) {
-                if (c.isHit()) {
-                    grid[c.getX()][c.getY()] = SHOT;
-                } else if (!c.isHit()) {
-                    grid[c.getX()][c.getY()] = MISS;
+                if (current.contains(c.getX(), c.getY())) {
+                    renderer.set(c.getX(), c.getY(), controller.isHit(c) ? SHOT : MISS);
                 }
             }
         }
-        printGrid();
     }
 
     /**
-     * Update the view using Observer
-     *
-     * @param o
-     * @param o1
+     * Mark the attacked cell as a hit or a miss
      */
     @Override
-    public void update(Observable o, Object o1) {
-        if (o instanceof BattleShipModel) {
-            setHit((Boolean) o1);
-        }
-        if (isHit()) {
-            grid[getAttackCoordinates().getX()][getAttackCoordinates().getY()] = SHOT;
-        } else {
-            grid[getAttackCoordinates().getX()][getAttackCoordinates().getY()] = MISS;
+    public void shotResolved(Coordinates points, int cell, boolean hit, Ship sunk) {
+        setHit(hit);
+        if (cell >= 0) {
+            renderer.set(points.getX(), points.getY(), hit ? SHOT : MISS);
         }
     }
 
+    /**
+     * Redraw the whole grid for a new or loaded game
+     */
+    @Override
+    public void gameReset(BoardGeometry geometry) {
+        populateGrid();
+    }
+
     /**
      * @return attacked coordinates
      */
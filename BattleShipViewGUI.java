@@ -1,10 +1,10 @@
 package battleship;
 
 import java.io.File;
-import java.util.Observable;
-import java.util.Observer;
+import java.util.List;
+import java.util.concurrent.CompletionException;
 import javafx.application.Application;
-import javafx.event.EventHandler;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
@@ -13,26 +13,30 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.Label;
-import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
 import javafx.stage.Stage;
 
-public class BattleShipViewGUI extends Application implements Observer {
+public class BattleShipViewGUI extends Application implements GameListener {
 
     private static final int GRIDHEIGHT = 40;
     private static final int GRIDWIDTH = 40;
-    private static final int ROWSIZE = 11;
-    private static final int COLUMNSIZE = 11;
     private static final int WINDOW_WIDTH = 500;
     private static final int WINDOW_HEIGHT = 550;
+    // boards with more cells than this are drawn on a canvas
+    private static final int CANVAS_THRESHOLD = 400;
 
     private Coordinates attackCoordinates;
     private boolean hit;
 
-    private GridPane board = createGrid();
+    private BoardGeometry geometry = BoardGeometry.DEFAULT;
+    private GridPane root;
+    private Node board;
+    // the button of each cell, or null when the board is drawn on a canvas
+    private Button[] cells;
+    private CanvasBoard canvas;
     private BattleShipController controller;
     private BattleShipModel model;
 
@@ -41,8 +45,14 @@ public class BattleShipViewGUI extends Application implements Observer {
         model = new BattleShipModel();
         controller = new BattleShipController(model);
         controller.setViewGUI(this);
-        model.addObserver(this);
+        controller.setPersistenceService(new PersistenceService(Platform::runLater));
+        model.addGameListener(this);
 
+        List<String> arguments = getParameters().getRaw();
+        if (!arguments.isEmpty()) {
+            geometry = BoardGeometry.parse(arguments.get(0));
+        }
+        board = createBoard();
         Scene gameBoard = board(primaryStage);
         board.setVisible(false);
 
@@ -52,18 +62,18 @@ public class BattleShipViewGUI extends Application implements Observer {
     }
 
     /**
-     * Create a new board with button grid of 10x10 and menu options
+     * Create a new board with a button grid the size of the board and menu
+     * options
      *
      * @param stage
      * @return scene with all objects added
      */
     private Scene board(Stage stage) {
-        GridPane root = new GridPane();
+        root = new GridPane();
         HBox menuOptions = menu(stage);
 
         GridPane.setConstraints(board, 0, 0);
         GridPane.setConstraints(menuOptions, 0, 1);
-        board.setAlignment(Pos.CENTER);
         menuOptions.setAlignment(Pos.CENTER);
         root.getChildren().addAll(board, menuOptions);
 
@@ -72,32 +82,40 @@ public class BattleShipViewGUI extends Application implements Observer {
     }
 
     /**
-     * Update the view using Observer
-     *
-     * @param o
-     * @param o1
+     * Mark the attacked cell as a hit or a miss
      */
     @Override
-    public void update(Observable o, Object o1) {
-        if (o instanceof BattleShipModel) {
-            setHit((Boolean) o1);
+    public void shotResolved(Coordinates points, int cell, boolean hit, Ship sunk) {
+        setHit(hit);
+        if (cell >= 0) {
+            markShot(cell, hit);
         }
+    }
 
-        for (Node node : board.getChildren()) {
-            if (node instanceof Button) {
-                if (board.getRowIndex(node) == getAttackCoordinates().getY() + 1
-                        && board.getColumnIndex(node) == getAttackCoordinates().getX() + 1) {
-                    Button button = (Button) node;
-                    button.setText(isHit() ? "X" : "M");
-                    button.setDisable(true);
-                    break;
-                }
-            }
+    /**
+     * Show a shot on the button of the cell or queue it on the canvas
+     *
+     * @param cell index of the cell
+     * @param hit true if a ship occupies the cell
+     */
+    private void markShot(int cell, boolean hit) {
+        if (cells != null) {
+            cells[cell].setText(hit ? "X" : "M");
+            cells[cell].setDisable(true);
+        } else {
+            canvas.markShot(cell, hit);
         }
+    }
 
-        if (controller.winGame()) {
-            gameWon();
-        }
+    /**
+     * Redraw the whole grid for a new or loaded game, resizing it if the
+     * board size changed
+     */
+    @Override
+    public void gameReset(BoardGeometry geometry) {
+        resizeGrid();
+        cleanGrid();
+        populateLoadGame();
     }
 
     /**
@@ -113,15 +131,20 @@ public class BattleShipViewGUI extends Application implements Observer {
         buttonSaveGame.setVisible(false);
         buttonSaveGame.setText("Save Game");
         buttonSaveGame.setOnAction((event) -> {
-            controller.saveGame();
+            buttonSaveGame.setText("Saving...");
+            controller.saveGameAsync("myfile.txt").whenComplete((result, ex) -> {
+                buttonSaveGame.setText("Save Game");
+                if (ex != null) {
+                    showError("Could not save game", ex);
+                }
+            });
         }
         );
 
         Button buttonNewDefaultGame = new Button();
         buttonNewDefaultGame.setText("New Default Game");
         buttonNewDefaultGame.setOnAction((event) -> {
-            cleanGrid();
-            controller.initialise(1);
+            controller.initialise(1, geometry);
             board.setManaged(true);
             board.setVisible(true);
             buttonSaveGame.setVisible(true);
@@ -131,8 +154,7 @@ public class BattleShipViewGUI extends Application implements Observer {
         Button buttonNewRandomGame = new Button();
         buttonNewRandomGame.setText("New Random Game");
         buttonNewRandomGame.setOnAction((event) -> {
-            cleanGrid();
-            controller.initialise(2);
+            controller.initialise(2, geometry);
             board.setManaged(true);
             board.setVisible(true);
             buttonSaveGame.setVisible(true);
@@ -144,16 +166,21 @@ public class BattleShipViewGUI extends Application implements Observer {
         buttonLoadGame.setOnAction((event) -> {
             FileChooser fileChooser = new FileChooser();
             fileChooser.setTitle("Select Game File");
-            fileChooser.getExtensionFilters().addAll(new ExtensionFilter("Text Files", "*.txt"));
+            fileChooser.getExtensionFilters().addAll(new ExtensionFilter("Saved Games", "*.txt", "*" + BinaryGameFormat.EXTENSION, "*" + MoveJournal.EXTENSION));
             File fileName = fileChooser.showOpenDialog(stage);
 
             if (fileName != null) {
-                controller.loadGame(fileName.getName());
-                cleanGrid();
-                populateLoadGame();
-                board.setManaged(true);
-                board.setVisible(true);
-                buttonSaveGame.setVisible(true);
+                buttonLoadGame.setDisable(true);
+                controller.loadGameAsync(fileName.getName()).whenComplete((result, ex) -> {
+                    buttonLoadGame.setDisable(false);
+                    if (ex != null) {
+                        showError("Could not load game", ex);
+                        return;
+                    }
+                    board.setManaged(true);
+                    board.setVisible(true);
+                    buttonSaveGame.setVisible(true);
+                });
             }
         }
         );
@@ -162,101 +189,138 @@ public class BattleShipViewGUI extends Application implements Observer {
     }
 
     /**
-     * Create 10x10 grid of buttons and labels for x and y
+     * Replace the board if a loaded game uses a different board size
+     */
+    private void resizeGrid() {
+        if (!controller.getGeometry().equals(geometry)) {
+            geometry = controller.getGeometry();
+            root.getChildren().remove(board);
+            board = createBoard();
+            GridPane.setConstraints(board, 0, 0);
+            root.getChildren().add(board);
+        }
+    }
+
+    /**
+     * Create a grid of buttons for the board, or a canvas in a scroll pane if
+     * the board has too many cells for buttons
+     *
+     * @return node showing the board
+     */
+    private Node createBoard() {
+        if (geometry.getCells() <= CANVAS_THRESHOLD) {
+            canvas = null;
+            return createGrid();
+        }
+        cells = null;
+        canvas = new CanvasBoard(geometry);
+        canvas.setOnCellClicked(this::cellClicked);
+        canvas.setPrefViewportWidth(WINDOW_WIDTH);
+        canvas.setPrefViewportHeight(WINDOW_HEIGHT - 2 * GRIDHEIGHT);
+        canvas.setManaged(false);
+        return canvas;
+    }
+
+    /**
+     * Create a grid of buttons the size of the board and labels for x and y.
+     * Each button is kept in cells at the index of its cell
      *
      * @return GridPane with labels and buttons added
      */
     private GridPane createGrid() {
         GridPane grid = new GridPane();
-        String[] yValues = new String[]{"A", "B", "C", "D", "E", "F", "G", "H", "I", "J"};
+        cells = new Button[geometry.getCells()];
 
-        for (int row = 1; row < ROWSIZE; row++) {
-            Label lab = new Label(yValues[row - 1]);
+        for (int row = 1; row <= geometry.getHeight(); row++) {
+            Label lab = new Label(BoardGeometry.rowLabel(row - 1));
             lab.setMinSize(GRIDWIDTH, GRIDHEIGHT);
             lab.setAlignment(Pos.CENTER);
             grid.add(lab, 0, row);
         }
 
-        for (int col = 1; col < COLUMNSIZE; col++) {
+        for (int col = 1; col <= geometry.getWidth(); col++) {
             Label lab = new Label(Integer.toString(col));
             lab.setMinSize(GRIDWIDTH, GRIDHEIGHT);
             lab.setAlignment(Pos.CENTER);
             grid.add(lab, col, 0);
         }
 
-        for (int row = 1; row < ROWSIZE; row++) {
-            for (int col = 1; col < COLUMNSIZE; col++) {
+        for (int row = 1; row <= geometry.getHeight(); row++) {
+            for (int col = 1; col <= geometry.getWidth(); col++) {
                 Button rec = new Button();
                 rec.setMinSize(GRIDWIDTH, GRIDHEIGHT);
-                GridPane.setRowIndex(rec, row);
                 grid.setMargin(rec, new Insets(1, 1, 1, 1));
                 grid.add(rec, col, row);
 
-                rec.addEventHandler(MouseEvent.MOUSE_CLICKED, new EventHandler<MouseEvent>() {
-                    @Override
-                    public void handle(MouseEvent event) {
-                        for (Node node : board.getChildren()) {
-                            if (node instanceof Button) {
-                                if (node.getBoundsInParent().contains(event.getSceneX(), event.getSceneY())) {
-                                    setAttackCoordinates(new Coordinates(GridPane.getColumnIndex(node) - 1, GridPane.getRowIndex(node) - 1));
-                                }
-                            }
-                        }
-                        if (!controller.positionTried(getAttackCoordinates())) {
-                            controller.attack(getAttackCoordinates());
-                        }
-                    }
-                });
+                int cell = geometry.index(col - 1, row - 1);
+                cells[cell] = rec;
+                rec.setOnMouseClicked(event -> cellClicked(cell));
             }
         }
         grid.setManaged(false);
-        grid.setAlignment(Pos.TOP_LEFT);
+        grid.setAlignment(Pos.CENTER);
         return grid;
     }
 
     /**
-     * Populate the grid with text file data. If coordinate tried then button
-     * will be disable and assigned a string value of X for hit and M for miss
+     * Attack the clicked cell unless it has already been tried
+     *
+     * @param cell index of the clicked cell
+     */
+    private void cellClicked(int cell) {
+        if (controller.winGame()) {
+            return;
+        }
+        setAttackCoordinates(Coordinates.of(geometry, cell));
+        if (!controller.positionTried(getAttackCoordinates())) {
+            controller.attack(getAttackCoordinates());
+        }
+    }
+
+    /**
+     * Populate the board with the loaded game in one pass over the
+     * coordinates tried. If coordinate tried then the cell will be disabled
+     * and shown as X for hit and M for miss
      */
     private void populateLoadGame() {
-        for (Node node : board.getChildren()) {
-            if (node instanceof Button) {
-                for (Coordinates c : controller.getCoordinatesesTried()) {
-                    if (board.getRowIndex(node) - 1 == c.getY() && board.getColumnIndex(node) - 1 == c.getX()) {
-                        Button buttonGrid = (Button) node;
-                        buttonGrid.setDisable(true);
-                        buttonGrid.setText(c.isHit() ? "X" : "M");
-                    }
-                }
+        BoardGeometry current = controller.getGeometry();
+        for (Coordinates c : controller.getCoordinatesesTried()) {
+            if (current.contains(c.getX(), c.getY())) {
+                markShot(current.index(c.getX(), c.getY()), controller.isHit(c));
             }
         }
     }
 
     /**
-     * Enable all the buttons on the grid and clear of any string values
+     * Enable all the cells on the board and clear of any string values
      */
     private void cleanGrid() {
-        for (Node node : board.getChildren()) {
-            if (node instanceof Button) {
-                ((Button) node).setText("");
-                ((Button) node).setDisable(false);
+        if (cells != null) {
+            for (Button button : cells) {
+                button.setText("");
+                button.setDisable(false);
             }
+        } else {
+            canvas.clear();
         }
     }
 
     /**
      * If the game has been won then display an alert dialog to inform the user
+     *
+     * @param moves number of moves the game took
      */
-    private void gameWon() {
-        for (Node node : board.getChildren()) {
-            if (node instanceof Button) {
-                ((Button) node).setDisable(true);
+    @Override
+    public void gameWon(int moves) {
+        if (cells != null) {
+            for (Button button : cells) {
+                button.setDisable(true);
             }
         }
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
         alert.setTitle("You Won!!!");
         alert.setHeaderText("You Won!!!");
-        alert.setContentText("It took you " + controller.getCoordinatesesTried().size() + " moves ");
+        alert.setContentText("It took you " + moves + " moves ");
 
         alert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
@@ -264,6 +328,29 @@ public class BattleShipViewGUI extends Application implements Observer {
         });
     }
 
+    /**
+     * Display an alert dialog explaining why a save or load failed
+     *
+     * @param header title of the alert
+     * @param ex cause of the failure
+     */
+    void showError(String header, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle(header);
+        alert.setHeaderText(header);
+        alert.setContentText(cause.getMessage());
+        alert.showAndWait();
+    }
+
+    /**
+     * Finish any save still being written before the application exits
+     */
+    @Override
+    public void stop() {
+        controller.shutdown();
+    }
+
     /**
      * @return attacked coordinates
      */
@@ -0,0 +1,292 @@
+package battleship;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary save format. All values are big endian.
+ *
+ * <pre>
+ * int    magic "BSGF"
+ * byte   version
+ * byte   flags, bit 0 set when a shot bitmap follows the fleet
+ * short  width
+ * short  height
+ * short  number of ships
+ * int    number of moves
+ * ships  per ship a short length followed by that many cells
+ * bitmap (cells + 7) / 8 bytes, bit i of byte b is cell b * 8 + i
+ * moves  one cell per move in the order they were played
+ * </pre>
+ *
+ * Cells are packed y * width + x and take two bytes on boards of up to 65536
+ * cells and four bytes otherwise. The bitmap is left out on larger boards.
+ */
+public final class BinaryGameFormat {
+
+    public static final String EXTENSION = ".bsg";
+    public static final byte VERSION = 1;
+
+    private static final int MAGIC = 0x42534746;
+    private static final int HEADER_BYTES = 16;
+    private static final byte FLAG_SHOT_BITMAP = 1;
+
+    private BinaryGameFormat() {
+    }
+
+    /**
+     * @param fileName name of a save file
+     * @return true if the file name has the binary save extension
+     */
+    public static boolean isBinary(String fileName) {
+        return fileName.toLowerCase().endsWith(EXTENSION);
+    }
+
+    /**
+     * Encode the model's fleet, shot bitmap and move history
+     *
+     * @param model model holding the game
+     * @return buffer positioned at 0 holding the encoded game
+     */
+    public static ByteBuffer encode(BattleShipModel model) {
+        List<List<Coordinates>> fleet = new ArrayList<>(model.getShipList().size());
+        for (Ship ship : model.getShipList()) {
+            fleet.add(ship.getPosition());
+        }
+        return encode(model.getGeometry(), fleet, model.getCoordinatesesTried());
+    }
+
+    /**
+     * Encode the snapshot's fleet, shot bitmap and move history, without
+     * restoring it into a model first
+     *
+     * @param snapshot snapshot holding the game
+     * @return buffer positioned at 0 holding the encoded game
+     */
+    public static ByteBuffer encode(GameSnapshot snapshot) {
+        return encode(snapshot.getGeometry(), snapshot.getFleet(), snapshot.getMoves());
+    }
+
+    private static ByteBuffer encode(BoardGeometry geometry, List<List<Coordinates>> ships, List<Coordinates> history) {
+        List<Coordinates> moves = new ArrayList<>(history.size());
+        for (Coordinates move : history) {
+            if (geometry.contains(move.getX(), move.getY())) {
+                moves.add(move);
+            }
+        }
+        int cellBytes = cellBytes(geometry);
+        boolean bitmap = geometry.isDense();
+        int shipCells = 0;
+        for (List<Coordinates> position : ships) {
+            shipCells += position.size();
+        }
+        int size = HEADER_BYTES + ships.size() * 2 + shipCells * cellBytes
+                + (bitmap ? bitmapBytes(geometry) : 0) + moves.size() * cellBytes;
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.put(bitmap ? FLAG_SHOT_BITMAP : 0);
+        buffer.putShort((short) geometry.getWidth());
+        buffer.putShort((short) geometry.getHeight());
+        buffer.putShort((short) ships.size());
+        buffer.putInt(moves.size());
+        for (List<Coordinates> position : ships) {
+            buffer.putShort((short) position.size());
+            for (Coordinates point : position) {
+                putCell(buffer, geometry.index(point.getX(), point.getY()), cellBytes);
+            }
+        }
+        if (bitmap) {
+            int start = buffer.position();
+            buffer.position(start + bitmapBytes(geometry));
+            for (Coordinates move : moves) {
+                int cell = geometry.index(move.getX(), move.getY());
+                int at = start + (cell >>> 3);
+                buffer.put(at, (byte) (buffer.get(at) | 1 << (cell & 7)));
+            }
+        }
+        for (Coordinates move : moves) {
+            putCell(buffer, geometry.index(move.getX(), move.getY()), cellBytes);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Write the model's game to a binary save file
+     *
+     * @param model model holding the game
+     * @param file file to write, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(BattleShipModel model, Path file) throws IOException {
+        write(encode(model), file);
+    }
+
+    /**
+     * Write the snapshot's game to a binary save file
+     *
+     * @param snapshot snapshot holding the game
+     * @param file file to write, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(GameSnapshot snapshot, Path file) throws IOException {
+        write(encode(snapshot), file);
+    }
+
+    private static void write(ByteBuffer buffer, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Memory map a binary save file and restore its game into the model
+     *
+     * @param file file to read
+     * @param model model to restore the game into
+     * @throws IOException if the file cannot be read or is not a valid save
+     */
+    public static void read(Path file, BattleShipModel model) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Files.size(file));
+            decode(buffer, model);
+        }
+    }
+
+    /**
+     * Decode a game and restore it into the model. Every count is checked
+     * against the bytes left before anything is allocated, ships may not be
+     * empty or overlap, and the shot bitmap must hold exactly the cells of
+     * the moves
+     *
+     * @param buffer buffer positioned at the start of an encoded game
+     * @param model model to restore the game into
+     * @throws IOException if the buffer does not hold a valid save
+     */
+    public static void decode(ByteBuffer buffer, BattleShipModel model) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a BattleShip binary save");
+            }
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported save version " + version);
+            }
+            boolean bitmap = (buffer.get() & FLAG_SHOT_BITMAP) != 0;
+            BoardGeometry geometry;
+            try {
+                geometry = new BoardGeometry(buffer.getShort() & 0xFFFF, buffer.getShort() & 0xFFFF);
+            } catch (IllegalArgumentException ex) {
+                throw new IOException(ex.getMessage(), ex);
+            }
+            int shipCount = buffer.getShort() & 0xFFFF;
+            int moveCount = buffer.getInt();
+            if (moveCount < 0) {
+                throw new IOException("Invalid move count " + moveCount);
+            }
+            int cellBytes = cellBytes(geometry);
+            if (shipCount > buffer.remaining() / 2) {
+                throw new IOException("Invalid ship count " + shipCount);
+            }
+
+            List<List<Coordinates>> fleet = new ArrayList<>(shipCount);
+            CellSet occupied = CellSet.forGeometry(geometry);
+            for (int i = 0; i < shipCount; i++) {
+                int length = buffer.getShort() & 0xFFFF;
+                if (length == 0 || length > buffer.remaining() / cellBytes) {
+                    throw new IOException("Invalid length " + length + " of ship " + i);
+                }
+                List<Coordinates> position = new ArrayList<>(length);
+                for (int j = 0; j < length; j++) {
+                    int cell = getCell(buffer, geometry, cellBytes);
+                    if (occupied.contains(cell)) {
+                        throw new IOException("Ship " + i + " overlaps another ship at cell " + cell);
+                    }
+                    occupied.add(cell);
+                    position.add(Coordinates.of(geometry, cell));
+                }
+                fleet.add(position);
+            }
+            int bitmapStart = buffer.position();
+            if (bitmap) {
+                if (!geometry.isDense()) {
+                    throw new IOException("Shot bitmap on a " + geometry + " board");
+                }
+                buffer.position(bitmapStart + bitmapBytes(geometry));
+                int spare = geometry.getCells() & 7;
+                if (spare != 0 && (buffer.get(buffer.position() - 1) & 0xFF) >>> spare != 0) {
+                    throw new IOException("Shot bitmap marks cells outside the " + geometry + " board");
+                }
+            }
+            if (moveCount > buffer.remaining() / cellBytes) {
+                throw new IOException("Invalid move count " + moveCount);
+            }
+            List<Coordinates> moves = new ArrayList<>(moveCount);
+            CellSet tried = CellSet.forGeometry(geometry);
+            int triedCells = 0;
+            for (int i = 0; i < moveCount; i++) {
+                int cell = getCell(buffer, geometry, cellBytes);
+                if (bitmap && (buffer.get(bitmapStart + (cell >>> 3)) & 1 << (cell & 7)) == 0) {
+                    throw new IOException("Move " + i + " is missing from the shot bitmap");
+                }
+                if (!tried.contains(cell)) {
+                    tried.add(cell);
+                    triedCells++;
+                }
+                moves.add(Coordinates.of(geometry, cell));
+            }
+            if (bitmap && bitCount(buffer, bitmapStart, bitmapBytes(geometry)) != triedCells) {
+                throw new IOException("Shot bitmap marks cells which were never attacked");
+            }
+            model.restoreGame(geometry, fleet, moves);
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            throw new IOException("Truncated save at byte " + buffer.position(), ex);
+        }
+    }
+
+    private static int bitCount(ByteBuffer buffer, int start, int length) {
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            count += Integer.bitCount(buffer.get(start + i) & 0xFF);
+        }
+        return count;
+    }
+
+    private static int cellBytes(BoardGeometry geometry) {
+        return geometry.getCells() <= 1 << 16 ? 2 : 4;
+    }
+
+    private static int bitmapBytes(BoardGeometry geometry) {
+        return (geometry.getCells() + 7) >>> 3;
+    }
+
+    private static void putCell(ByteBuffer buffer, int cell, int cellBytes) {
+        if (cellBytes == 2) {
+            buffer.putShort((short) cell);
+        } else {
+            buffer.putInt(cell);
+        }
+    }
+
+    private static int getCell(ByteBuffer buffer, BoardGeometry geometry, int cellBytes) throws IOException {
+        int cell = cellBytes == 2 ? buffer.getShort() & 0xFFFF : buffer.getInt();
+        if (cell < 0 || cell >= geometry.getCells()) {
+            throw new IOException("Cell " + cell + " is outside the " + geometry + " board at byte "
+                    + (buffer.position() - cellBytes));
+        }
+        return cell;
+    }
+}
@@ -0,0 +1,125 @@
+package battleship;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class Board {
+
+    private static final int NO_SHIP = -1;
+
+    private final BoardGeometry geometry;
+    private final CellSet occupancy;
+    private final CellSet shots;
+    // dense boards use a flat cell to ship table, sparse boards a map
+    private final int[] shipCells;
+    private final Map<Integer, Integer> sparseShipCells;
+
+    public Board() {
+        this(BoardGeometry.DEFAULT);
+    }
+
+    public Board(BoardGeometry geometry) {
+        this.geometry = geometry;
+        this.occupancy = CellSet.forGeometry(geometry);
+        this.shots = CellSet.forGeometry(geometry);
+        this.shipCells = geometry.isDense() ? new int[geometry.getCells()] : null;
+        this.sparseShipCells = geometry.isDense() ? null : new HashMap<>();
+        clear();
+    }
+
+    /**
+     * Remove every ship and every shot from the board
+     */
+    public void clear() {
+        occupancy.clear();
+        shots.clear();
+        if (shipCells != null) {
+            Arrays.fill(shipCells, NO_SHIP);
+        } else {
+            sparseShipCells.clear();
+        }
+    }
+
+    /**
+     * Mark every cell of the ship as occupied and record which ship occupies
+     * it
+     *
+     * @param shipId index of the ship in the ship list
+     * @param ship ship which has already been assigned coordinates
+     */
+    public void addShip(int shipId, Ship ship) {
+        for (Coordinates point : ship.getPosition()) {
+            if (contains(point.getX(), point.getY())) {
+                int cell = index(point.getX(), point.getY());
+                occupancy.add(cell);
+                if (shipCells != null) {
+                    shipCells[cell] = shipId;
+                } else {
+                    sparseShipCells.put(cell, shipId);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return geometry of the board
+     */
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * @param x column of the cell
+     * @param y row of the cell
+     * @return true if the cell is inside the grid
+     */
+    public boolean contains(int x, int y) {
+        return geometry.contains(x, y);
+    }
+
+    /**
+     * @param x column of the cell
+     * @param y row of the cell
+     * @return the cell index of x and y
+     */
+    public int index(int x, int y) {
+        return geometry.index(x, y);
+    }
+
+    /**
+     * @param cell cell index
+     * @return true if a ship occupies the cell
+     */
+    public boolean isOccupied(int cell) {
+        return occupancy.contains(cell);
+    }
+
+    /**
+     * Record that the cell has been attacked
+     *
+     * @param cell cell index
+     */
+    public void markShot(int cell) {
+        shots.add(cell);
+    }
+
+    /**
+     * @param cell cell index
+     * @return true if the cell has already been attacked
+     */
+    public boolean isShot(int cell) {
+        return shots.contains(cell);
+    }
+
+    /**
+     * @param cell cell index
+     * @return id of the ship occupying the cell or -1 if the cell is empty
+     */
+    public int shipAt(int cell) {
+        if (!isOccupied(cell)) {
+            return NO_SHIP;
+        }
+        return shipCells != null ? shipCells[cell] : sparseShipCells.get(cell);
+    }
+}
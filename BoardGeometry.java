@@ -0,0 +1,180 @@
+package battleship;
+
+public final class BoardGeometry {
+
+    public static final int MAX_SIZE = 10000;
+    public static final BoardGeometry DEFAULT = new BoardGeometry(10, 10);
+
+    // boards with more cells than this use sparse storage
+    private static final int DENSE_LIMIT = 1 << 16;
+
+    private final int width, height;
+
+    public BoardGeometry(int width, int height) {
+        if (width < 1 || width > MAX_SIZE || height < 1 || height > MAX_SIZE) {
+            throw new IllegalArgumentException("Board must be between 1x1 and "
+                    + MAX_SIZE + "x" + MAX_SIZE + " but was " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Parse a board size written as WIDTHxHEIGHT, for example 20x15
+     *
+     * @param size board size
+     * @return geometry of the board
+     * @throws IllegalArgumentException if size is not a valid board size
+     */
+    public static BoardGeometry parse(String size) {
+        int separator = size.toLowerCase().indexOf('x');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Board size must be written as WIDTHxHEIGHT: " + size);
+        }
+        try {
+            return new BoardGeometry(Integer.parseInt(size.substring(0, separator).trim()),
+                    Integer.parseInt(size.substring(separator + 1).trim()));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Board size must be written as WIDTHxHEIGHT: " + size, ex);
+        }
+    }
+
+    /**
+     * @return number of columns
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return number of cells on the board
+     */
+    public int getCells() {
+        return width * height;
+    }
+
+    /**
+     * @return true if the board is small enough to be stored in flat arrays
+     */
+    public boolean isDense() {
+        return getCells() <= DENSE_LIMIT;
+    }
+
+    /**
+     * @param x column of the cell
+     * @param y row of the cell
+     * @return true if the cell is inside the grid
+     */
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * @param x column of the cell
+     * @param y row of the cell
+     * @return the cell index of x and y
+     */
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    /**
+     * @param cell cell index
+     * @return column of the cell
+     */
+    public int x(int cell) {
+        return cell % width;
+    }
+
+    /**
+     * @param cell cell index
+     * @return row of the cell
+     */
+    public int y(int cell) {
+        return cell / width;
+    }
+
+    /**
+     * Row labels run A to Z, then AA to ZZ and so on
+     *
+     * @param y row index
+     * @return label of the row
+     */
+    public static String rowLabel(int y) {
+        StringBuilder label = new StringBuilder();
+        for (int n = y + 1; n > 0; n = (n - 1) / 26) {
+            label.append((char) ('A' + (n - 1) % 26));
+        }
+        return label.reverse().toString();
+    }
+
+    /**
+     * @param label row label such as B or AC, case insensitive
+     * @return row index of the label or -1 if it is not a valid label
+     */
+    public static int rowIndex(String label) {
+        if (label.isEmpty() || label.length() > 4) {
+            return -1;
+        }
+        int n = 0;
+        for (int i = 0; i < label.length(); i++) {
+            char c = Character.toUpperCase(label.charAt(i));
+            if (c < 'A' || c > 'Z') {
+                return -1;
+            }
+            n = n * 26 + (c - 'A' + 1);
+        }
+        return n - 1;
+    }
+
+    /**
+     * Parse a cell written as a row label followed by a column number, for
+     * example B7
+     *
+     * @param point the cell written by the user
+     * @return coordinates of the cell or null if it is not inside the grid
+     */
+    public Coordinates parseCell(String point) {
+        int split = 0;
+        while (split < point.length() && Character.isLetter(point.charAt(split))) {
+            split++;
+        }
+        if (split == 0 || split == point.length() || point.length() - split > 5) {
+            return null;
+        }
+        int y = rowIndex(point.substring(0, split));
+        int x;
+        try {
+            x = Integer.parseInt(point.substring(split)) - 1;
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        return contains(x, y) ? Coordinates.of(x, y) : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof BoardGeometry)) {
+            return false;
+        }
+        BoardGeometry other = (BoardGeometry) o;
+        return width == other.width && height == other.height;
+    }
+
+    @Override
+    public int hashCode() {
+        return width * 31 + height;
+    }
+
+    @Override
+    public String toString() {
+        return width + "x" + height;
+    }
+}
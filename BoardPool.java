@@ -0,0 +1,207 @@
+package battleship;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Fleets placed ahead of time by a background thread, so a new game does not
+ * wait for placement and its retries. Each type of game and board size has
+ * its own bounded queue, which is topped up to its size whenever it drops to
+ * the refill threshold. A model whose queue is empty places its fleet itself.
+ */
+public class BoardPool implements Closeable {
+
+    public static final int DEFAULT_SIZE = 64;
+    public static final int DEFAULT_REFILL_THRESHOLD = 16;
+
+    private final int size;
+    private final int refillThreshold;
+    private final Map<Key, FleetQueue> queues = new ConcurrentHashMap<>();
+    private final ExecutorService producer;
+    // only used on the producer thread
+    private final SplittableRandom random = new SplittableRandom();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder produced = new LongAdder();
+
+    private static final class Key {
+
+        private final int typeOfGame;
+        private final BoardGeometry geometry;
+
+        private Key(int typeOfGame, BoardGeometry geometry) {
+            this.typeOfGame = typeOfGame;
+            this.geometry = geometry;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return typeOfGame == other.typeOfGame && geometry.equals(other.geometry);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(typeOfGame, geometry);
+        }
+    }
+
+    private static final class FleetQueue {
+
+        private final Key key;
+        private final BlockingQueue<List<List<Coordinates>>> fleets;
+        private final AtomicBoolean refilling = new AtomicBoolean();
+        // set once placement fails, such as a fleet too large for the board
+        private volatile boolean failed;
+
+        private FleetQueue(Key key, int size) {
+            this.key = key;
+            fleets = new ArrayBlockingQueue<>(size);
+        }
+    }
+
+    public BoardPool() {
+        this(DEFAULT_SIZE, DEFAULT_REFILL_THRESHOLD);
+    }
+
+    /**
+     * @param size number of fleets kept ready for each type of game and board
+     * size
+     * @param refillThreshold a queue is topped up once it holds this many
+     * fleets or fewer
+     * @throws IllegalArgumentException if size is not positive or the
+     * threshold is not below it
+     */
+    public BoardPool(int size, int refillThreshold) {
+        if (size < 1 || refillThreshold < 0 || refillThreshold >= size) {
+            throw new IllegalArgumentException("Pool size " + size + " and refill threshold " + refillThreshold
+                    + " must satisfy 0 <= threshold < size");
+        }
+        this.size = size;
+        this.refillThreshold = refillThreshold;
+        this.producer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "board-pool");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Start filling the queue of a type of game and board size before the
+     * first game asks for it
+     *
+     * @param typeOfGame the type of Game
+     * @param geometry the width and height of the board
+     */
+    public void warmUp(int typeOfGame, BoardGeometry geometry) {
+        refill(queue(new Key(typeOfGame, geometry)));
+    }
+
+    /**
+     * Take a ready fleet without waiting
+     *
+     * @param typeOfGame the type of Game
+     * @param geometry the width and height of the board
+     * @return coordinates of each ship, or null if none is ready and the
+     * caller must place the fleet itself
+     */
+    public List<List<Coordinates>> take(int typeOfGame, BoardGeometry geometry) {
+        FleetQueue queue = queue(new Key(typeOfGame, geometry));
+        List<List<Coordinates>> fleet = queue.fleets.poll();
+        if (fleet != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        if (queue.fleets.size() <= refillThreshold) {
+            refill(queue);
+        }
+        return fleet;
+    }
+
+    private FleetQueue queue(Key key) {
+        return queues.computeIfAbsent(key, k -> new FleetQueue(k, size));
+    }
+
+    private void refill(FleetQueue queue) {
+        if (!queue.failed && queue.refilling.compareAndSet(false, true)) {
+            producer.execute(() -> produce(queue));
+        }
+    }
+
+    private void produce(FleetQueue queue) {
+        Key key = queue.key;
+        try {
+            PlacementEngine engine = PlacementEngine.forGeometry(key.geometry);
+            while (queue.fleets.remainingCapacity() > 0) {
+                queue.fleets.offer(BattleShipModel.createFleet(key.typeOfGame, engine, random));
+                produced.increment();
+            }
+        } catch (RuntimeException ex) {
+            queue.failed = true;
+            Logger.getLogger(BoardPool.class.getName()).log(Level.WARNING,
+                    "Stopped pooling fleets for a " + key.geometry + " board", ex);
+        } finally {
+            queue.refilling.set(false);
+        }
+    }
+
+    /**
+     * @return number of new games which took a ready fleet
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of new games which had to place their own fleet
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return fraction of new games which took a ready fleet
+     */
+    public double getHitRate() {
+        long taken = getHits() + getMisses();
+        return taken == 0 ? 0 : (double) getHits() / taken;
+    }
+
+    /**
+     * @return number of fleets placed by the background thread
+     */
+    public long getProduced() {
+        return produced.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("board pool hits %d, misses %d, hit rate %.1f%%, produced %d",
+                getHits(), getMisses(), getHitRate() * 100, getProduced());
+    }
+
+    /**
+     * Stop the background thread, queued fleets are discarded
+     */
+    @Override
+    public void close() {
+        producer.shutdownNow();
+    }
+}
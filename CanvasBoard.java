@@ -0,0 +1,170 @@
+package battleship;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import javafx.application.Platform;
+import javafx.geometry.Bounds;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+
+/**
+ * Board drawn on a canvas for boards too large for a grid of buttons. The
+ * scroll pane's content is an empty pane the size of the whole board, and the
+ * canvas only covers the cells in the viewport: it follows the scroll bars
+ * and is redrawn from the recorded shots, so it never grows past
+ * MAX_CANVAS_SIZE however large the board. Shots are queued as dirty cells and
+ * drawn together on the next pass of the JavaFX application thread, so a
+ * burst of shots or a loaded game costs one draw of the changed cells rather
+ * than a redraw of the viewport.
+ */
+public class CanvasBoard extends ScrollPane {
+
+    private static final double MAX_CANVAS_SIZE = 4096;
+    private static final double MAX_CELL_SIZE = 16;
+    // smallest cell which can still be clicked and shows its grid lines
+    private static final double MIN_CELL_SIZE = 4;
+    private static final double GAP = 1;
+    private static final Color WATER = Color.LIGHTSTEELBLUE;
+    private static final Color GRID = Color.STEELBLUE;
+    private static final Color HIT = Color.CRIMSON;
+    private static final Color MISS = Color.WHITE;
+
+    private final BoardGeometry geometry;
+    private final double cellSize;
+    private final Canvas canvas = new Canvas();
+    // every shot drawn so far, to redraw the cells scrolled into view
+    private final CellSet shots;
+    private final CellSet hits;
+    // first cell and number of cells across and down the canvas covers
+    private int firstX, firstY, columns, rows;
+    // cell * 2 + 1 for a hit, cell * 2 for a miss
+    private int[] dirty = new int[64];
+    private int dirtyCount;
+    private boolean flushQueued;
+
+    /**
+     * @param geometry the width and height of the board
+     */
+    public CanvasBoard(BoardGeometry geometry) {
+        this.geometry = geometry;
+        int longest = Math.max(geometry.getWidth(), geometry.getHeight());
+        this.cellSize = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, Math.floor(MAX_CANVAS_SIZE / longest)));
+        this.shots = CellSet.forGeometry(geometry);
+        this.hits = CellSet.forGeometry(geometry);
+        Pane board = new Pane(canvas);
+        board.setPrefSize(geometry.getWidth() * cellSize, geometry.getHeight() * cellSize);
+        setContent(board);
+        viewportBoundsProperty().addListener(observable -> redraw());
+        hvalueProperty().addListener(observable -> redraw());
+        vvalueProperty().addListener(observable -> redraw());
+    }
+
+    /**
+     * @param action called with the index of a cell when it is clicked
+     */
+    public void setOnCellClicked(IntConsumer action) {
+        canvas.setOnMouseClicked(event -> {
+            int x = firstX + (int) (event.getX() / cellSize);
+            int y = firstY + (int) (event.getY() / cellSize);
+            if (geometry.contains(x, y)) {
+                action.accept(geometry.index(x, y));
+            }
+        });
+    }
+
+    /**
+     * Draw every cell as untouched water and drop any recorded or queued shot
+     */
+    public void clear() {
+        dirtyCount = 0;
+        shots.clear();
+        hits.clear();
+        redraw();
+    }
+
+    /**
+     * Move the canvas over the cells in the viewport and draw them from the
+     * recorded shots
+     */
+    private void redraw() {
+        Bounds viewport = getViewportBounds();
+        double left = Math.max(0, geometry.getWidth() * cellSize - viewport.getWidth()) * getHvalue();
+        double top = Math.max(0, geometry.getHeight() * cellSize - viewport.getHeight()) * getVvalue();
+        firstX = (int) (left / cellSize);
+        firstY = (int) (top / cellSize);
+        // one more cell across and down for the ones cut by the viewport's edges
+        columns = (int) Math.min(Math.min(geometry.getWidth() - firstX, Math.ceil(viewport.getWidth() / cellSize) + 1),
+                Math.floor(MAX_CANVAS_SIZE / cellSize));
+        rows = (int) Math.min(Math.min(geometry.getHeight() - firstY, Math.ceil(viewport.getHeight() / cellSize) + 1),
+                Math.floor(MAX_CANVAS_SIZE / cellSize));
+        canvas.setWidth(columns * cellSize);
+        canvas.setHeight(rows * cellSize);
+        canvas.relocate(firstX * cellSize, firstY * cellSize);
+
+        GraphicsContext graphics = canvas.getGraphicsContext2D();
+        graphics.setFill(WATER);
+        graphics.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        graphics.setFill(GRID);
+        for (int x = 0; x < columns; x++) {
+            graphics.fillRect(x * cellSize, 0, GAP, canvas.getHeight());
+        }
+        for (int y = 0; y < rows; y++) {
+            graphics.fillRect(0, y * cellSize, canvas.getWidth(), GAP);
+        }
+        for (int y = firstY; y < firstY + rows; y++) {
+            for (int x = firstX; x < firstX + columns; x++) {
+                int cell = geometry.index(x, y);
+                if (shots.contains(cell)) {
+                    drawShot(graphics, x, y, hits.contains(cell));
+                }
+            }
+        }
+    }
+
+    /**
+     * Record a shot and queue it to be drawn on the next pass of the
+     * application thread
+     *
+     * @param cell index of the cell
+     * @param hit true if a ship occupies the cell
+     */
+    public void markShot(int cell, boolean hit) {
+        shots.add(cell);
+        if (hit) {
+            hits.add(cell);
+        }
+        if (dirtyCount == dirty.length) {
+            dirty = Arrays.copyOf(dirty, dirtyCount * 2);
+        }
+        dirty[dirtyCount++] = cell << 1 | (hit ? 1 : 0);
+        if (!flushQueued) {
+            flushQueued = true;
+            Platform.runLater(this::flush);
+        }
+    }
+
+    /**
+     * Draw every queued shot which is on the canvas
+     */
+    private void flush() {
+        flushQueued = false;
+        GraphicsContext graphics = canvas.getGraphicsContext2D();
+        for (int i = 0; i < dirtyCount; i++) {
+            int cell = dirty[i] >>> 1;
+            int x = geometry.x(cell), y = geometry.y(cell);
+            if (x >= firstX && x < firstX + columns && y >= firstY && y < firstY + rows) {
+                drawShot(graphics, x, y, (dirty[i] & 1) != 0);
+            }
+        }
+        dirtyCount = 0;
+    }
+
+    private void drawShot(GraphicsContext graphics, int x, int y, boolean hit) {
+        graphics.setFill(hit ? HIT : MISS);
+        graphics.fillRect((x - firstX) * cellSize + GAP, (y - firstY) * cellSize + GAP,
+                cellSize - GAP, cellSize - GAP);
+    }
+}
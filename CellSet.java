@@ -0,0 +1,28 @@
+package battleship;
+
+public interface CellSet {
+
+    /**
+     * @param cell cell index
+     * @return true if the cell is in the set
+     */
+    boolean contains(int cell);
+
+    /**
+     * @param cell cell index to add to the set
+     */
+    void add(int cell);
+
+    /**
+     * Remove every cell from the set
+     */
+    void clear();
+
+    /**
+     * @param geometry geometry of the board
+     * @return flat bitset for small boards, chunked sparse bitset otherwise
+     */
+    static CellSet forGeometry(BoardGeometry geometry) {
+        return geometry.isDense() ? new DenseCellSet(geometry.getCells()) : new SparseCellSet();
+    }
+}
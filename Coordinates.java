@@ -1,20 +1,49 @@
 package battleship;
 
-public class Coordinates {
+public final class Coordinates {
 
-    private int x, y;
-    private boolean hit;//if there was a ship in its position and it is hit
+    // flyweights are shared for every cell of boards up to this size
+    private static final int CACHE_SIZE = 64;
+    private static final Coordinates[] CACHE = new Coordinates[CACHE_SIZE * CACHE_SIZE];
 
-    public Coordinates(int x, int y) {
-        this.x = x;
-        this.y = y;
-        this.hit = false;
+    static {
+        for (int y = 0; y < CACHE_SIZE; y++) {
+            for (int x = 0; x < CACHE_SIZE; x++) {
+                CACHE[y * CACHE_SIZE + x] = new Coordinates(x, y);
+            }
+        }
     }
 
-    public Coordinates(int x, int y, boolean hit) {
+    private final int x, y;
+
+    private Coordinates(int x, int y) {
         this.x = x;
         this.y = y;
-        this.hit = hit;
+    }
+
+    /**
+     * Coordinates are immutable, so the same instance is shared for every
+     * use of a cell on boards up to 64x64. Whether a cell was hit is held by
+     * the board, not by the coordinates
+     *
+     * @param x column of the cell
+     * @param y row of the cell
+     * @return coordinates of the cell
+     */
+    public static Coordinates of(int x, int y) {
+        if (x >= 0 && x < CACHE_SIZE && y >= 0 && y < CACHE_SIZE) {
+            return CACHE[y * CACHE_SIZE + x];
+        }
+        return new Coordinates(x, y);
+    }
+
+    /**
+     * @param geometry geometry of the board
+     * @param cell cell index
+     * @return coordinates of the cell
+     */
+    public static Coordinates of(BoardGeometry geometry, int cell) {
+        return of(geometry.x(cell), geometry.y(cell));
     }
 
     public int getX() {
@@ -25,19 +54,22 @@ public class Coordinates {
         return y;
     }
 
-    public boolean isHit() {
-        return hit;
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Coordinates)) {
+            return false;
+        }
+        Coordinates other = (Coordinates) o;
+        return x == other.x && y == other.y;
     }
 
-    public void setX(int x) {
-        this.x = x;
-    }
-
-    public void setY(int y) {
-        this.y = y;
+    @Override
+    public int hashCode() {
+        return x * 31 + y;
     }
 
-    public void setHit(boolean hit) {
-        this.hit = hit;
+    @Override
+    public String toString() {
+        return "( " + x + " , " + y + " )";
     }
 }
@@ -0,0 +1,34 @@
+package battleship;
+
+import java.util.Arrays;
+
+public class DenseCellSet implements CellSet {
+
+    private final long[] words;
+
+    public DenseCellSet(int cells) {
+        this.words = new long[(cells + 63) >>> 6];
+    }
+
+    @Override
+    public boolean contains(int cell) {
+        return (words[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    @Override
+    public void add(int cell) {
+        words[cell >>> 6] |= 1L << cell;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0L);
+    }
+
+    /**
+     * @return the backing words, bit i of word w is cell w * 64 + i
+     */
+    public long[] getWords() {
+        return words;
+    }
+}
@@ -0,0 +1,74 @@
+package battleship;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Solver built on the density map of ProbabilityShooter. Each solve rebuilds
+ * the map from the model, which costs a pass over every placement of every
+ * ship, so it is worth caching. The probabilities are the densities scaled
+ * so they add up to the ship cells still to be found; they rank the cells
+ * well but are an estimate rather than an exact count. Ties between cells are
+ * broken by a generator restarted for every solve from the solver's seed and
+ * the position, so the result depends only on the position and a cached
+ * result is the same whichever game solved it first.
+ */
+public class DensitySolver implements Solver {
+
+    private final long seed;
+    private final Ties ties = new Ties();
+    private final ProbabilityShooter shooter = new ProbabilityShooter(ties);
+
+    /**
+     * SplitMix64 generator which can be restarted from any seed
+     */
+    private static final class Ties implements RandomGenerator {
+
+        private long state;
+
+        @Override
+        public long nextLong() {
+            return Zobrist.mix(state += Zobrist.GAMMA);
+        }
+    }
+
+    public DensitySolver() {
+        this(System.nanoTime());
+    }
+
+    /**
+     * @param seed seed of the tie breaks, solvers with the same seed give the
+     * same result for the same position
+     */
+    public DensitySolver(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the board is too large to hold a
+     * density map
+     */
+    @Override
+    public SolverResult solve(BattleShipModel model) {
+        ties.state = Zobrist.mix(seed ^ SolverCache.key(model));
+        shooter.newGame(model);
+        BoardGeometry geometry = model.getGeometry();
+        Coordinates best = shooter.nextShot();
+        long[] density = shooter.getDensityMap();
+        double total = 0;
+        for (int cell = 0; cell < density.length; cell++) {
+            if (!model.isPositionTried(Coordinates.of(geometry, cell))) {
+                total += density[cell];
+            }
+        }
+        double[] probabilities = new double[density.length];
+        if (total > 0) {
+            double scale = model.getRemainingCells() / total;
+            for (int cell = 0; cell < density.length; cell++) {
+                if (!model.isPositionTried(Coordinates.of(geometry, cell))) {
+                    probabilities[cell] = Math.min(1, density[cell] * scale);
+                }
+            }
+        }
+        return new SolverResult(geometry.index(best.getX(), best.getY()), probabilities);
+    }
+}
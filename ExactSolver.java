@@ -0,0 +1,626 @@
+package battleship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chance of hitting a ship on every cell, worked out from the sizes of the
+ * fleet and the hits, misses and sunk ships of a game. Every arrangement of
+ * the ships still afloat which avoids the misses and the sunk ships, covers
+ * every hit and leaves each ship at least one cell not yet attacked is
+ * equally likely, so a cell's chance is the share of those arrangements
+ * covering it.
+ *
+ * When the number of arrangements is small enough they are all counted: the
+ * placements of the first ship are shared out between fork/join tasks, each
+ * of which walks the remaining ships depth first over bitmasks of the
+ * occupied cells, dropping a branch as soon as the ships left are too short
+ * to cover the hits it has not covered. Ships of the same size are placed
+ * in increasing order so each arrangement is counted once. A position is
+ * counted when the product of its placements is within the enumeration
+ * limit, or when a few hundred random walks through the enumeration
+ * estimate that it checks no more placements than the limit; the count
+ * still gives up once it has checked that many. Larger positions, such as
+ * the start of a game, are estimated instead by drawing a bounded number of
+ * random arrangements in parallel and keeping those consistent with the
+ * game, and every chance comes with a 95% Wilson confidence interval. Samples are drawn in rounds of a fixed number of
+ * chunks, each chunk seeded from the solver's seed, the position and its own
+ * index, so a position always gets the same samples whatever the timing of
+ * the threads. If no sample at all is consistent the chances are those of
+ * DensitySolver instead.
+ */
+public class ExactSolver implements Solver {
+
+    public static final long DEFAULT_ENUMERATION_LIMIT = 20_000_000L;
+    public static final int DEFAULT_SAMPLES = 200_000;
+    public static final int MAX_CELLS = 1024;
+
+    // placements checked by a task between looks at the shared budget
+    private static final int BUDGET_CHECK = 1 << 16;
+    // random walks through the enumeration used to estimate its size
+    private static final int ESTIMATE_PROBES = 256;
+
+    // random arrangements drawn for each sample wanted before giving up
+    private static final int MAX_ATTEMPTS_PER_SAMPLE = 20;
+    private static final int SAMPLE_CHUNK = 1 << 14;
+    // chunks drawn between checks of the samples kept
+    private static final int ROUND_CHUNKS = 64;
+    private static final double Z = 1.959964;
+
+    private final ForkJoinPool pool;
+    private final long enumerationLimit;
+    private final int samples;
+    private final long seed;
+
+    public ExactSolver() {
+        this(System.nanoTime());
+    }
+
+    /**
+     * Solver running on the fork/join pool of the thread which calls it, or
+     * on the common pool when called from any other thread
+     *
+     * @param seed seed of the samples and tie breaks, solvers with the same
+     * seed give the same result for the same position
+     */
+    public ExactSolver(long seed) {
+        this(null, DEFAULT_ENUMERATION_LIMIT, DEFAULT_SAMPLES, seed);
+    }
+
+    /**
+     * @param pool pool the enumeration and sampling run on, or null for the
+     * pool of the calling thread
+     * @param enumerationLimit most placements an exact count may check,
+     * larger positions are sampled
+     * @param samples number of consistent arrangements to sample, drawing
+     * at most 20 random arrangements for each
+     * @param seed seed of the samples and tie breaks
+     * @throws IllegalArgumentException if the limit or samples are not
+     * positive
+     */
+    public ExactSolver(ForkJoinPool pool, long enumerationLimit, int samples, long seed) {
+        if (enumerationLimit < 1 || samples < 1) {
+            throw new IllegalArgumentException("Enumeration limit and samples must be positive");
+        }
+        this.pool = pool;
+        this.enumerationLimit = enumerationLimit;
+        this.samples = samples;
+        this.seed = seed;
+    }
+
+    @Override
+    public SolverResult solve(BattleShipModel model) {
+        HitProbabilities probabilities = analyse(model);
+        return new SolverResult(probabilities.getBestCell(), probabilities.getProbabilities());
+    }
+
+    /**
+     * @param model model holding the game, only its visible state is used
+     * @return chance of hitting a ship on every cell. If sampling kept no
+     * arrangement at all the chances are DensitySolver's estimate, with
+     * bounds of 0 and 1 and no arrangements
+     * @throws IllegalArgumentException if the board has more than MAX_CELLS
+     * cells
+     * @throws IllegalStateException if every cell has already been tried
+     */
+    public HitProbabilities analyse(BattleShipModel model) {
+        long start = GameMetrics.start();
+        ForkJoinPool target = pool != null ? pool
+                : ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool() : ForkJoinPool.commonPool();
+        Position position = new Position(model);
+        long positionSeed = Zobrist.mix(seed ^ SolverCache.key(model));
+        Counts counts = null;
+        if (position.ships == 0) {
+            counts = new Counts(position);
+            counts.total = 1;
+        } else if (position.bound <= enumerationLimit) {
+            counts = target.invoke(new Enumeration(position, 0, position.placements[0].count, null));
+        } else if (position.estimateChecks(positionSeed) <= enumerationLimit) {
+            // the estimate can fall short, so the count still gives up at the limit
+            Budget budget = new Budget(enumerationLimit);
+            counts = target.invoke(new Enumeration(position, 0, position.placements[0].count, budget));
+            if (budget.exceeded) {
+                counts = null;
+            }
+        }
+        boolean exact = counts != null;
+        HitProbabilities result;
+        if (exact) {
+            result = position.probabilities(counts, true);
+        } else {
+            long chunks = ((long) samples * MAX_ATTEMPTS_PER_SAMPLE + SAMPLE_CHUNK - 1) / SAMPLE_CHUNK;
+            counts = new Counts(position);
+            // the samples kept are only checked between rounds, never while chunks are running
+            for (long done = 0; done < chunks && counts.total < samples; done += ROUND_CHUNKS) {
+                counts.add(target.invoke(new Sampling(position, done, Math.min(chunks, done + ROUND_CHUNKS),
+                        positionSeed)));
+            }
+            result = counts.total > 0 ? position.probabilities(counts, false)
+                    : position.estimate(new DensitySolver(seed).solve(model));
+        }
+        GameMetrics.record(GameMetrics.Operation.SOLVE, start);
+        return result;
+    }
+
+    /**
+     * Every allowed placement of one ship size as cell bitmasks
+     */
+    private static final class Placements {
+
+        private final int length, count;
+        private final int[] starts, steps;
+        private final long[] masks;
+
+        private Placements(BoardGeometry geometry, int length, int words, long[] blocked, boolean[] tried) {
+            this.length = length;
+            List<int[]> allowed = new ArrayList<>();
+            int width = geometry.getWidth(), height = geometry.getHeight();
+            for (int vertical = 0; vertical < (length > 1 ? 2 : 1); vertical++) {
+                int step = vertical == 0 ? 1 : width;
+                int maxX = vertical == 0 ? width - length : width - 1;
+                int maxY = vertical == 0 ? height - 1 : height - length;
+                for (int y = 0; y <= maxY; y++) {
+                    for (int x = 0; x <= maxX; x++) {
+                        int first = geometry.index(x, y);
+                        boolean free = true, untried = false;
+                        for (int i = 0, cell = first; i < length && free; i++, cell += step) {
+                            free = (blocked[cell >>> 6] & 1L << cell) == 0;
+                            untried |= !tried[cell];
+                        }
+                        // a ship afloat has at least one cell not yet attacked
+                        if (free && untried) {
+                            allowed.add(new int[]{first, step});
+                        }
+                    }
+                }
+            }
+            count = allowed.size();
+            starts = new int[count];
+            steps = new int[count];
+            masks = new long[count * words];
+            for (int p = 0; p < count; p++) {
+                starts[p] = allowed.get(p)[0];
+                steps[p] = allowed.get(p)[1];
+                for (int i = 0, cell = starts[p]; i < length; i++, cell += steps[p]) {
+                    masks[p * words + (cell >>> 6)] |= 1L << cell;
+                }
+            }
+        }
+    }
+
+    /**
+     * What a player can see of a game, as bitmasks over the cells
+     */
+    private static final class Position {
+
+        private final BoardGeometry geometry;
+        private final int words;
+        private final boolean[] tried;
+        // hits on ships still afloat, every arrangement must cover them
+        private final long[] hits;
+        private final int ships;
+        private final Placements[] placements;
+        private final boolean[] sameAsPrevious;
+        private final int[] suffixLength;
+        // upper bound on the arrangements, the product of the placements
+        private final double bound;
+
+        private Position(BattleShipModel model) {
+            geometry = model.getGeometry();
+            int cells = geometry.getCells();
+            if (cells > MAX_CELLS) {
+                throw new IllegalArgumentException("ExactSolver needs a board of at most " + MAX_CELLS + " cells");
+            }
+            words = (cells + 63) >>> 6;
+            tried = new boolean[cells];
+            hits = new long[words];
+            long[] blocked = new long[words];
+            for (Coordinates points : model.getCoordinatesesTried()) {
+                if (geometry.contains(points.getX(), points.getY())) {
+                    int cell = geometry.index(points.getX(), points.getY());
+                    tried[cell] = true;
+                    if (model.isHit(points)) {
+                        hits[cell >>> 6] |= 1L << cell;
+                    } else {
+                        blocked[cell >>> 6] |= 1L << cell;
+                    }
+                }
+            }
+            List<Integer> afloat = new ArrayList<>();
+            for (Ship ship : model.getShipList()) {
+                if (!ship.isSunk()) {
+                    afloat.add(ship.getSize());
+                    continue;
+                }
+                for (Coordinates points : ship.getPosition()) {
+                    if (geometry.contains(points.getX(), points.getY())) {
+                        int cell = geometry.index(points.getX(), points.getY());
+                        blocked[cell >>> 6] |= 1L << cell;
+                        hits[cell >>> 6] &= ~(1L << cell);
+                    }
+                }
+            }
+            // longest ships first, they have the fewest placements
+            afloat.sort(Collections.reverseOrder());
+            ships = afloat.size();
+            placements = new Placements[ships];
+            sameAsPrevious = new boolean[ships];
+            suffixLength = new int[ships + 1];
+            Map<Integer, Placements> byLength = new HashMap<>();
+            double product = 1;
+            int run = 0;
+            for (int i = 0; i < ships; i++) {
+                int length = afloat.get(i);
+                placements[i] = byLength.computeIfAbsent(length,
+                        key -> new Placements(geometry, key, words, blocked, tried));
+                sameAsPrevious[i] = i > 0 && afloat.get(i - 1) == length;
+                run = sameAsPrevious[i] ? run + 1 : 1;
+                product = product * placements[i].count / run;
+            }
+            for (int i = ships - 1; i >= 0; i--) {
+                suffixLength[i] = suffixLength[i + 1] + afloat.get(i);
+            }
+            bound = product;
+        }
+
+        /**
+         * Knuth's estimate of the placements an enumeration would check. Each
+         * probe follows one random branch of the enumeration, choosing among
+         * the placements which fit and dropping out where the enumeration
+         * would, and weights the placements checked at each depth by the
+         * branches passed over on the way down. The mean over the probes is
+         * an unbiased estimate of the whole enumeration, at the cost of a few
+         * hundred walks from the root to a leaf
+         *
+         * @param seed seed of the probes, so a position always gets the same
+         * estimate
+         * @return estimated number of placements checked
+         */
+        private double estimateChecks(long seed) {
+            SplittableRandom random = new SplittableRandom(seed);
+            long[] occupied = new long[words];
+            int[] fitting = new int[placements[0].count];
+            for (Placements ship : placements) {
+                fitting = ship.count > fitting.length ? new int[ship.count] : fitting;
+            }
+            double total = 0;
+            for (int probe = 0; probe < ESTIMATE_PROBES; probe++) {
+                Arrays.fill(occupied, 0);
+                double weight = 1;
+                int first = 0;
+                for (int depth = 0; depth < ships; depth++) {
+                    int missingCells = 0;
+                    for (int w = 0; w < words; w++) {
+                        missingCells += Long.bitCount(hits[w] & ~occupied[w]);
+                    }
+                    if (missingCells > suffixLength[depth]) {
+                        break;
+                    }
+                    Placements ship = placements[depth];
+                    total += weight * (ship.count - first);
+                    if (depth == ships - 1) {
+                        break;
+                    }
+                    int fits = 0;
+                    for (int p = first; p < ship.count; p++) {
+                        boolean free = true;
+                        for (int w = 0, base = p * words; w < words && free; w++) {
+                            free = (ship.masks[base + w] & occupied[w]) == 0;
+                        }
+                        if (free) {
+                            fitting[fits++] = p;
+                        }
+                    }
+                    if (fits == 0) {
+                        break;
+                    }
+                    int p = fitting[random.nextInt(fits)];
+                    for (int w = 0, base = p * words; w < words; w++) {
+                        occupied[w] |= ship.masks[base + w];
+                    }
+                    weight *= fits;
+                    first = sameAsPrevious[depth + 1] ? p + 1 : 0;
+                }
+            }
+            return total / ESTIMATE_PROBES;
+        }
+
+        /**
+         * Turn the counts of each placement into the chance of each cell
+         */
+        private HitProbabilities probabilities(Counts counts, boolean exact) {
+            int cells = geometry.getCells();
+            long[] covered = new long[cells];
+            long[] prior = new long[cells];
+            for (int i = 0; i < ships; i++) {
+                Placements ship = placements[i];
+                for (int p = 0; p < ship.count; p++) {
+                    for (int k = 0, cell = ship.starts[p]; k < ship.length; k++, cell += ship.steps[p]) {
+                        covered[cell] += counts.placements[i][p];
+                        prior[cell]++;
+                    }
+                }
+            }
+            double[] probabilities = new double[cells];
+            double[] lower = new double[cells];
+            double[] upper = new double[cells];
+            int best = -1;
+            for (int cell = 0; cell < cells; cell++) {
+                if (tried[cell]) {
+                    continue;
+                }
+                double p = counts.total == 0 ? 0 : (double) covered[cell] / counts.total;
+                probabilities[cell] = p;
+                if (exact) {
+                    lower[cell] = p;
+                    upper[cell] = p;
+                } else {
+                    double n = counts.total;
+                    double centre = (p + Z * Z / (2 * n)) / (1 + Z * Z / n);
+                    double half = Z * Math.sqrt(p * (1 - p) / n + Z * Z / (4 * n * n)) / (1 + Z * Z / n);
+                    lower[cell] = Math.max(0, centre - half);
+                    upper[cell] = Math.min(1, centre + half);
+                }
+                // ties go to the cell most placements cross
+                if (best < 0 || p > probabilities[best] || p == probabilities[best] && prior[cell] > prior[best]) {
+                    best = cell;
+                }
+            }
+            if (best < 0) {
+                throw new IllegalStateException("Every cell has already been tried");
+            }
+            return new HitProbabilities(probabilities, lower, upper, exact, counts.total, best);
+        }
+
+        /**
+         * Chances estimated by another solver, with nothing known about
+         * their error beyond the untried cells lying between 0 and 1
+         */
+        private HitProbabilities estimate(SolverResult estimate) {
+            int cells = geometry.getCells();
+            double[] upper = new double[cells];
+            for (int cell = 0; cell < cells; cell++) {
+                upper[cell] = tried[cell] ? 0 : 1;
+            }
+            return new HitProbabilities(estimate.getProbabilities(), new double[cells], upper, false, 0,
+                    estimate.getBestCell());
+        }
+    }
+
+    /**
+     * Number of arrangements using each placement of each ship
+     */
+    private static final class Counts {
+
+        private final long[][] placements;
+        private long total;
+
+        private Counts(Position position) {
+            placements = new long[position.ships][];
+            for (int i = 0; i < position.ships; i++) {
+                placements[i] = new long[position.placements[i].count];
+            }
+        }
+
+        private Counts add(Counts other) {
+            for (int i = 0; i < placements.length; i++) {
+                for (int p = 0; p < placements[i].length; p++) {
+                    placements[i][p] += other.placements[i][p];
+                }
+            }
+            total += other.total;
+            return this;
+        }
+    }
+
+    /**
+     * Placements an enumeration may check before it gives up, shared by all
+     * of its tasks
+     */
+    private static final class Budget {
+
+        private final long limit;
+        private final LongAdder used = new LongAdder();
+        private volatile boolean exceeded;
+
+        private Budget(long limit) {
+            this.limit = limit;
+        }
+
+        private void use(long placements) {
+            used.add(placements);
+            if (used.sum() > limit) {
+                exceeded = true;
+            }
+        }
+    }
+
+    /**
+     * Count every arrangement whose first ship uses one of a range of its
+     * placements
+     */
+    private static final class Enumeration extends RecursiveTask<Counts> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Position position;
+        private final int from, to;
+        // null when the enumeration is known to fit within the limit
+        private final Budget budget;
+        private long unreported;
+        private Counts counts;
+        private int[] chosen;
+        private long[][] occupied;
+        private long[] missing;
+
+        private Enumeration(Position position, int from, int to, Budget budget) {
+            this.position = position;
+            this.from = from;
+            this.to = to;
+            this.budget = budget;
+        }
+
+        @Override
+        protected Counts compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                Enumeration left = new Enumeration(position, from, middle, budget);
+                left.fork();
+                Counts right = new Enumeration(position, middle, to, budget).compute();
+                return right.add(left.join());
+            }
+            counts = new Counts(position);
+            chosen = new int[position.ships];
+            occupied = new long[position.ships + 1][position.words];
+            missing = new long[position.words];
+            walk(0, from, to);
+            return counts;
+        }
+
+        private void walk(int depth, int first, int last) {
+            if (budget != null && budget.exceeded) {
+                return;
+            }
+            int words = position.words;
+            long[] occupiedHere = occupied[depth];
+            int missingCells = 0;
+            for (int w = 0; w < words; w++) {
+                missing[w] = position.hits[w] & ~occupiedHere[w];
+                missingCells += Long.bitCount(missing[w]);
+            }
+            if (missingCells > position.suffixLength[depth]) {
+                // the ships left cannot cover every hit
+                return;
+            }
+            Placements ship = position.placements[depth];
+            long[] masks = ship.masks;
+            if (depth == position.ships - 1) {
+                long valid = 0;
+                long[] shipCounts = counts.placements[depth];
+                for (int p = first; p < last; p++) {
+                    boolean fits = true;
+                    for (int w = 0, base = p * words; w < words && fits; w++) {
+                        long mask = masks[base + w];
+                        fits = (mask & occupiedHere[w]) == 0 && (mask & missing[w]) == missing[w];
+                    }
+                    if (fits) {
+                        shipCounts[p]++;
+                        valid++;
+                    }
+                }
+                if (valid > 0) {
+                    counts.total += valid;
+                    for (int d = 0; d < depth; d++) {
+                        counts.placements[d][chosen[d]] += valid;
+                    }
+                }
+                report(last - first);
+                return;
+            }
+            long[] next = occupied[depth + 1];
+            int nextCount = position.placements[depth + 1].count;
+            boolean ordered = position.sameAsPrevious[depth + 1];
+            for (int p = first; p < last; p++) {
+                boolean free = true;
+                for (int w = 0, base = p * words; w < words && free; w++) {
+                    free = (masks[base + w] & occupiedHere[w]) == 0;
+                }
+                if (free) {
+                    for (int w = 0, base = p * words; w < words; w++) {
+                        next[w] = occupiedHere[w] | masks[base + w];
+                    }
+                    chosen[depth] = p;
+                    walk(depth + 1, ordered ? p + 1 : 0, nextCount);
+                }
+            }
+            report(last - first);
+        }
+
+        /**
+         * Count placements checked, passing them on to the budget in batches
+         */
+        private void report(long checked) {
+            unreported += checked;
+            if (budget != null && unreported >= BUDGET_CHECK) {
+                budget.use(unreported);
+                unreported = 0;
+            }
+        }
+    }
+
+    /**
+     * Draw random arrangements for a range of chunks, keeping those
+     * consistent with the game. Each chunk has a generator of its own seeded
+     * from its index, so the samples do not depend on which thread draws
+     * them
+     */
+    private static final class Sampling extends RecursiveTask<Counts> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Position position;
+        private final long from, to;
+        private final long seed;
+
+        private Sampling(Position position, long from, long to, long seed) {
+            this.position = position;
+            this.from = from;
+            this.to = to;
+            this.seed = seed;
+        }
+
+        @Override
+        protected Counts compute() {
+            if (to - from > 1) {
+                long middle = (from + to) >>> 1;
+                Sampling left = new Sampling(position, from, middle, seed);
+                left.fork();
+                Counts right = new Sampling(position, middle, to, seed).compute();
+                return right.add(left.join());
+            }
+            Counts counts = new Counts(position);
+            SplittableRandom random = new SplittableRandom(Zobrist.mix(seed + from * Zobrist.GAMMA));
+            int words = position.words;
+            int[] chosen = new int[position.ships];
+            long[] occupied = new long[words];
+            for (int attempt = 0; attempt < SAMPLE_CHUNK; attempt++) {
+                Arrays.fill(occupied, 0);
+                boolean fits = true;
+                for (int i = 0; i < position.ships && fits; i++) {
+                    Placements ship = position.placements[i];
+                    if (ship.count == 0) {
+                        fits = false;
+                        break;
+                    }
+                    int p = random.nextInt(ship.count);
+                    for (int w = 0, base = p * words; w < words && fits; w++) {
+                        fits = (ship.masks[base + w] & occupied[w]) == 0;
+                    }
+                    for (int w = 0, base = p * words; w < words && fits; w++) {
+                        occupied[w] |= ship.masks[base + w];
+                    }
+                    chosen[i] = p;
+                }
+                for (int w = 0; w < words && fits; w++) {
+                    fits = (position.hits[w] & ~occupied[w]) == 0;
+                }
+                if (fits) {
+                    for (int i = 0; i < position.ships; i++) {
+                        counts.placements[i][chosen[i]]++;
+                    }
+                    counts.total++;
+                }
+            }
+            return counts;
+        }
+    }
+}
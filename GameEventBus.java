@@ -0,0 +1,112 @@
+package battleship;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Delivers game events to a set of listeners. The listeners are kept in an
+ * array which is replaced on every change, so registering never locks and
+ * sending an event only reads one reference. With no listeners an event
+ * costs a single length check.
+ */
+public class GameEventBus {
+
+    private static final GameListener[] NONE = new GameListener[0];
+
+    private final AtomicReference<GameListener[]> listeners = new AtomicReference<>(NONE);
+
+    /**
+     * @param listener listener to add, ignored if it is already registered
+     */
+    public void addListener(GameListener listener) {
+        GameListener[] current, updated;
+        do {
+            current = listeners.get();
+            for (GameListener registered : current) {
+                if (registered == listener) {
+                    return;
+                }
+            }
+            updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = listener;
+        } while (!listeners.compareAndSet(current, updated));
+    }
+
+    /**
+     * @param listener listener to remove
+     */
+    public void removeListener(GameListener listener) {
+        GameListener[] current, updated;
+        do {
+            current = listeners.get();
+            int index = -1;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == listener) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return;
+            }
+            updated = current.length == 1 ? NONE : new GameListener[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+        } while (!listeners.compareAndSet(current, updated));
+    }
+
+    /**
+     * @return true if at least one listener is registered
+     */
+    public boolean hasListeners() {
+        return listeners.get().length > 0;
+    }
+
+    /**
+     * Send the events for one resolved shot: shotResolved, then shipSunk if
+     * it sank a ship and gameWon if that was the last ship
+     *
+     * @param points coordinates which were attacked
+     * @param cell index of the cell or -1 if outside the board
+     * @param hit true if a ship occupies the cell
+     * @param sunk the ship sunk by this shot or null
+     * @param won true if the shot sank the last ship
+     * @param moves number of moves played so far
+     */
+    public void shotResolved(Coordinates points, int cell, boolean hit, Ship sunk, boolean won, int moves) {
+        GameListener[] current = listeners.get();
+        if (current.length == 0) {
+            return;
+        }
+        long start = GameMetrics.start();
+        for (GameListener listener : current) {
+            listener.shotResolved(points, cell, hit, sunk);
+        }
+        if (sunk != null) {
+            for (GameListener listener : current) {
+                listener.shipSunk(sunk);
+            }
+            if (won) {
+                for (GameListener listener : current) {
+                    listener.gameWon(moves);
+                }
+            }
+        }
+        GameMetrics.record(GameMetrics.Operation.NOTIFY, start);
+    }
+
+    /**
+     * @param geometry the width and height of the new board
+     */
+    public void gameReset(BoardGeometry geometry) {
+        GameListener[] current = listeners.get();
+        if (current.length == 0) {
+            return;
+        }
+        long start = GameMetrics.start();
+        for (GameListener listener : current) {
+            listener.gameReset(geometry);
+        }
+        GameMetrics.record(GameMetrics.Operation.NOTIFY, start);
+    }
+}
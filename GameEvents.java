@@ -0,0 +1,164 @@
+package battleship;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Java Flight Recorder events of the game lifecycle and of saves and loads,
+ * so a recording lines up slow placement and slow disk access with garbage
+ * collection and the rest of the JVM. Events of a type which is disabled, or
+ * which finish within their threshold, are dropped before any field is set.
+ * None of them record a stack trace; ShotResolved and ShipSunk are off unless
+ * a recording settings file turns them on.
+ */
+public final class GameEvents {
+
+    private static final EventType SHOT_RESOLVED = EventType.getEventType(ShotResolved.class);
+
+    private GameEvents() {
+    }
+
+    /**
+     * @return true if a recording has turned ShotResolved on, so attack only
+     * creates the event when it will be recorded
+     */
+    static boolean isShotResolvedEnabled() {
+        return SHOT_RESOLVED.isEnabled();
+    }
+
+    @Name("battleship.GameInitialised")
+    @Label("Game Initialised")
+    @Description("A new game was set up and its fleet placed")
+    @Category("BattleShip")
+    @Threshold("1 ms")
+    @StackTrace(false)
+    public static final class GameInitialised extends Event {
+
+        @Label("Type Of Game")
+        @Description("1 for Default, 2 for Random, 0 for a fleet of given sizes")
+        int typeOfGame;
+
+        @Label("Board")
+        String board;
+
+        @Label("Fleet Size")
+        int fleetSize;
+
+        @Label("Placement Attempts")
+        @Description("Times the whole fleet was placed before it fitted, 0 if it came from the board pool")
+        int placementAttempts;
+
+        @Label("Pooled")
+        boolean pooled;
+    }
+
+    @Name("battleship.ShotResolved")
+    @Label("Shot Resolved")
+    @Category("BattleShip")
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class ShotResolved extends Event {
+
+        @Label("X")
+        int x;
+
+        @Label("Y")
+        int y;
+
+        @Label("Hit")
+        boolean hit;
+
+        @Label("Moves")
+        int moves;
+    }
+
+    @Name("battleship.ShipSunk")
+    @Label("Ship Sunk")
+    @Category("BattleShip")
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class ShipSunk extends Event {
+
+        @Label("Ship Size")
+        int size;
+
+        @Label("Moves")
+        int moves;
+    }
+
+    @Name("battleship.GameWon")
+    @Label("Game Won")
+    @Category("BattleShip")
+    @StackTrace(false)
+    public static final class GameWon extends Event {
+
+        @Label("Moves")
+        int moves;
+    }
+
+    /**
+     * Save or load of one file, committed through finish once the file has
+     * been written or read
+     */
+    abstract static class FileEvent extends Event {
+
+        @Label("File")
+        String file;
+
+        @Label("Format")
+        @Description("text, binary or journal")
+        String format;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        /**
+         * End the event and commit it if it is enabled and took longer than
+         * its threshold
+         *
+         * @param path file which was written or read
+         * @param fileFormat text, binary or journal
+         */
+        void finish(Path path, String fileFormat) {
+            end();
+            if (shouldCommit()) {
+                file = path.toString();
+                format = fileFormat;
+                try {
+                    bytes = Files.size(path);
+                } catch (IOException ex) {
+                    bytes = -1;
+                }
+                commit();
+            }
+        }
+    }
+
+    @Name("battleship.SaveCompleted")
+    @Label("Save Completed")
+    @Category("BattleShip")
+    @Threshold("0 ms")
+    @StackTrace(false)
+    public static final class SaveCompleted extends FileEvent {
+    }
+
+    @Name("battleship.LoadCompleted")
+    @Label("Load Completed")
+    @Category("BattleShip")
+    @Threshold("0 ms")
+    @StackTrace(false)
+    public static final class LoadCompleted extends FileEvent {
+    }
+}
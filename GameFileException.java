@@ -0,0 +1,30 @@
+package battleship;
+
+import java.io.IOException;
+
+public class GameFileException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int line, column;
+
+    public GameFileException(String message, int line, int column) {
+        super(message + " at line " + line + ", column " + column);
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * @return line of the save file the error was found on, starting at 1
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * @return column of the save file the error was found at, starting at 1
+     */
+    public int getColumn() {
+        return column;
+    }
+}
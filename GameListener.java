@@ -0,0 +1,48 @@
+package battleship;
+
+/**
+ * Receives the events of a game from BattleShipModel. Every method does
+ * nothing by default, so a listener only overrides the events it needs. The
+ * events are delivered on the thread which changed the model.
+ */
+public interface GameListener {
+
+    /**
+     * A shot has been resolved
+     *
+     * @param points coordinates which were attacked
+     * @param cell index of the cell on the board or -1 if the coordinates are
+     * outside the board
+     * @param hit true if a ship occupies the cell
+     * @param sunk the ship sunk by this shot or null if it did not sink one
+     */
+    default void shotResolved(Coordinates points, int cell, boolean hit, Ship sunk) {
+    }
+
+    /**
+     * A ship has been sunk, delivered after shotResolved
+     *
+     * @param ship the ship which was sunk
+     */
+    default void shipSunk(Ship ship) {
+    }
+
+    /**
+     * The last ship has been sunk, delivered after shipSunk
+     *
+     * @param moves number of moves the game took
+     */
+    default void gameWon(int moves) {
+    }
+
+    /**
+     * The whole game has been replaced, by a new game or by one that was
+     * loaded or restored. This is the only event sent for a restored game, so
+     * listeners redraw everything from the model at once rather than a shot
+     * at a time
+     *
+     * @param geometry the width and height of the new board
+     */
+    default void gameReset(BoardGeometry geometry) {
+    }
+}
@@ -0,0 +1,157 @@
+package battleship;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Latency histograms and counters of the model's hot paths, published over
+ * JMX as battleship:type=Metrics and one battleship:type=Metrics,operation=
+ * bean for each operation. Recording reads the clock twice per operation,
+ * which is a large share of an attack, so it is off unless the JVM is
+ * started with -Dbattleship.metrics=true. ENABLED is otherwise a constant
+ * false, so the JIT drops every recording call along with the clock reads
+ * around it.
+ */
+public final class GameMetrics implements GameMetricsMBean {
+
+    public static final boolean ENABLED = Boolean.getBoolean("battleship.metrics");
+
+    /**
+     * Operations whose latency is recorded
+     */
+    public enum Operation {
+        ATTACK, INITIALISE, PLACEMENT, SAVE, LOAD, NOTIFY, SOLVE
+    }
+
+    private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[Operation.values().length];
+    private static final LongAdder PLACEMENT_RETRIES = new LongAdder();
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            HISTOGRAMS[i] = new LatencyHistogram();
+        }
+        if (ENABLED) {
+            register();
+        }
+    }
+
+    private GameMetrics() {
+    }
+
+    private static void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new GameMetrics(), new ObjectName("battleship:type=Metrics"));
+            for (Operation operation : Operation.values()) {
+                server.registerMBean(histogram(operation), new ObjectName("battleship:type=Metrics,operation="
+                        + operation.name().toLowerCase(Locale.ROOT)));
+            }
+        } catch (JMException | SecurityException ex) {
+            Logger.getLogger(GameMetrics.class.getName()).log(Level.WARNING, "Game metrics not published over JMX", ex);
+        }
+    }
+
+    /**
+     * Publish another bean alongside the game metrics, replacing any bean
+     * already published under the same name. Does nothing when metrics are
+     * off
+     *
+     * @param bean standard MBean to publish
+     * @param name name of the bean, such as type=SolverCache
+     */
+    public static void publish(Object bean, String name) {
+        if (!ENABLED) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("battleship:" + name);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(bean, objectName);
+        } catch (JMException | SecurityException ex) {
+            Logger.getLogger(GameMetrics.class.getName()).log(Level.WARNING, "Could not publish " + name, ex);
+        }
+    }
+
+    /**
+     * @return current time to pass to record, or 0 when metrics are off
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Record the time taken by an operation
+     *
+     * @param operation operation which finished
+     * @param start value returned by start when the operation began
+     */
+    public static void record(Operation operation, long start) {
+        if (ENABLED) {
+            HISTOGRAMS[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @param retries number of placements which had to be tried again
+     */
+    public static void placementRetries(int retries) {
+        if (ENABLED && retries > 0) {
+            PLACEMENT_RETRIES.add(retries);
+        }
+    }
+
+    /**
+     * @param operation operation to read
+     * @return histogram of the operation's latency
+     */
+    public static LatencyHistogram histogram(Operation operation) {
+        return HISTOGRAMS[operation.ordinal()];
+    }
+
+    /**
+     * @return one line for each operation with its count and latency
+     */
+    public static String summary() {
+        StringBuilder summary = new StringBuilder();
+        for (Operation operation : Operation.values()) {
+            summary.append(String.format("%-10s %s%n", operation.name().toLowerCase(Locale.ROOT), histogram(operation)));
+        }
+        summary.append("placement retries ").append(PLACEMENT_RETRIES.sum());
+        return summary.toString();
+    }
+
+    @Override
+    public long getPlacementRetries() {
+        return PLACEMENT_RETRIES.sum();
+    }
+
+    @Override
+    public long getAttacks() {
+        return histogram(Operation.ATTACK).getCount();
+    }
+
+    @Override
+    public long getGamesInitialised() {
+        return histogram(Operation.INITIALISE).getCount();
+    }
+
+    /**
+     * Reset every histogram and counter
+     */
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+        PLACEMENT_RETRIES.reset();
+    }
+}
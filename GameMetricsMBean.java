@@ -0,0 +1,15 @@
+package battleship;
+
+/**
+ * Counters of the model as published over JMX
+ */
+public interface GameMetricsMBean {
+
+    long getPlacementRetries();
+
+    long getAttacks();
+
+    long getGamesInitialised();
+
+    void reset();
+}
@@ -0,0 +1,231 @@
+package battleship;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Local TCP server hosting one GameSession per connection. Clients send one
+ * command per line, see GameSession for the protocol. Hosted games are kept
+ * in a SessionRegistry so several connections can play the same game. Each connection is
+ * served by its own thread: a virtual thread when the runtime has them and a
+ * platform thread with a small stack otherwise.
+ */
+public class GameServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 7070;
+
+    private static final int MAX_LINE_LENGTH = 256;
+    private static final int IDLE_TIMEOUT_MILLIS = 10 * 60 * 1000;
+    private static final long THREAD_STACK_SIZE = 256 * 1024;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = newConnectionExecutor();
+    private final PersistenceService persistence = new PersistenceService();
+    private final SessionRegistry registry = new SessionRegistry();
+    private final BoardPool boardPool = new BoardPool();
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    private final BoardGeometry geometry;
+    private final Path saveDirectory;
+    private Thread acceptor;
+    private volatile boolean running;
+
+    /**
+     * Bind the server to the loopback address
+     *
+     * @param port port to listen on, 0 for any free port
+     * @param geometry board size of new games
+     * @param saveDirectory directory sessions save to and load from, created
+     * if missing
+     * @throws IOException if the port cannot be bound
+     */
+    public GameServer(int port, BoardGeometry geometry, Path saveDirectory) throws IOException {
+        this.geometry = geometry;
+        this.saveDirectory = saveDirectory;
+        Files.createDirectories(saveDirectory);
+        this.serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        boardPool.warmUp(1, geometry);
+        boardPool.warmUp(2, geometry);
+    }
+
+    /**
+     * @return an executor starting one thread per task, virtual when the
+     * runtime supports them
+     */
+    private static ExecutorService newConnectionExecutor() {
+        try {
+            // virtual threads are only available from Java 21
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(null, runnable, "game-session-" + count.incrementAndGet(), THREAD_STACK_SIZE);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * @return the port the server is listening on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return number of clients connected
+     */
+    public int getConnections() {
+        return clients.size();
+    }
+
+    /**
+     * @return number of games hosted for other sessions to join
+     */
+    public int getHostedGames() {
+        return registry.size();
+    }
+
+    /**
+     * @return the pool new games take their fleets from
+     */
+    public BoardPool getBoardPool() {
+        return boardPool;
+    }
+
+    /**
+     * Accept connections on a background thread until the server is closed
+     */
+    public synchronized void start() {
+        if (acceptor != null) {
+            return;
+        }
+        running = true;
+        acceptor = new Thread(this::acceptLoop, "game-server-" + getPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                clients.add(socket);
+                connections.execute(() -> serve(socket));
+            } catch (IOException ex) {
+                if (running) {
+                    Logger.getLogger(GameServer.class.getName()).log(Level.WARNING, null, ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Run the session of one connection until the client quits or
+     * disconnects
+     */
+    private void serve(Socket socket) {
+        GameSession session = new GameSession(geometry, saveDirectory, persistence, registry, boardPool);
+        try (Socket client = socket;
+                BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new BufferedWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8))) {
+            client.setSoTimeout(IDLE_TIMEOUT_MILLIS);
+            client.setTcpNoDelay(true);
+            out.write("OK BattleShip " + geometry + "\n");
+            out.flush();
+            StringBuilder line = new StringBuilder();
+            while (!session.isClosed() && readLine(in, line)) {
+                if (line.length() > MAX_LINE_LENGTH) {
+                    out.write("ERR Line too long\n");
+                    break;
+                }
+                if (line.toString().trim().isEmpty()) {
+                    continue;
+                }
+                String reply;
+                try {
+                    reply = session.execute(line.toString());
+                } catch (RuntimeException ex) {
+                    // a failed command ends with ERR and the connection carries on
+                    Logger.getLogger(GameServer.class.getName()).log(Level.WARNING,
+                            "Command failed: " + line, ex);
+                    reply = "ERR Command failed";
+                }
+                out.write(reply);
+                out.write('\n');
+                out.flush();
+            }
+            out.flush();
+        } catch (SocketTimeoutException | SocketException ex) {
+            // idle or dropped clients simply end their session
+        } catch (IOException ex) {
+            Logger.getLogger(GameServer.class.getName()).log(Level.WARNING, null, ex);
+        } finally {
+            session.close();
+            clients.remove(socket);
+        }
+    }
+
+    /**
+     * Read one line into line, stopping early once it is longer than
+     * MAX_LINE_LENGTH
+     *
+     * @return false at the end of the stream
+     */
+    private static boolean readLine(BufferedReader in, StringBuilder line) throws IOException {
+        line.setLength(0);
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                return true;
+            }
+            if (c != '\r') {
+                line.append((char) c);
+                if (line.length() > MAX_LINE_LENGTH) {
+                    return true;
+                }
+            }
+        }
+        return line.length() > 0;
+    }
+
+    /**
+     * Stop accepting connections, disconnect every client and finish any
+     * save still being written
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        for (Socket client : clients) {
+            try {
+                client.close();
+            } catch (IOException ex) {
+                Logger.getLogger(GameServer.class.getName()).log(Level.FINE, null, ex);
+            }
+        }
+        connections.shutdown();
+        persistence.close();
+        boardPool.close();
+    }
+}
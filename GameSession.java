@@ -0,0 +1,237 @@
+package battleship;
+
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * One player's connection to the game server. A session starts with a game
+ * of its own; HOST registers that game so other sessions can JOIN it and
+ * play the same board at once. Commands mirror the CLI menu and every reply
+ * ends with a line starting OK or ERR.
+ *
+ * <pre>
+ * NEW DEFAULT | NEW RANDOM   OK width x height, number of ships
+ * ATTACK B7                  OK HIT | OK MISS | OK SUNK size | OK WON moves
+ * SAVE name.txt|bsg|bsj      OK SAVED name
+ * LOAD name.txt|bsg|bsj      OK LOADED width x height, ships left
+ * PRINT                      grid lines, then OK, on boards of up to 65536 cells
+ * HOST                       OK HOSTING id
+ * JOIN id                    OK JOINED id
+ * HELP                       OK followed by the commands
+ * QUIT                       OK BYE
+ * </pre>
+ */
+public class GameSession {
+
+    // save files are plain names inside the server's save directory
+    private static final Pattern FILE_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}\\.(txt|bsg|bsj)");
+    private static final String EMPTY = ".", SHOT = "X", MISS = "M";
+    // a 256x256 grid is already about 130 KB of text
+    private static final int MAX_PRINT_CELLS = 1 << 16;
+
+    private final BoardGeometry geometry;
+    private final Path saveDirectory;
+    private final SessionRegistry registry;
+    private SharedGame game;
+    private boolean closed;
+
+    /**
+     * @param geometry board size of new games
+     * @param saveDirectory directory SAVE and LOAD read and write
+     * @param persistence service shared by every session of the server
+     * @param registry games hosted on the server
+     * @param boardPool pool new games take their fleets from
+     */
+    public GameSession(BoardGeometry geometry, Path saveDirectory, PersistenceService persistence,
+            SessionRegistry registry, BoardPool boardPool) {
+        this.geometry = geometry;
+        this.saveDirectory = saveDirectory;
+        this.registry = registry;
+        this.game = new SharedGame(persistence, boardPool);
+        game.join();
+    }
+
+    /**
+     * Run one command and build the reply
+     *
+     * @param line command line sent by the client
+     * @return reply, one or more lines without a trailing line separator
+     */
+    public String execute(String line) {
+        String[] words = line.trim().split("\\s+");
+        String command = words[0].toUpperCase(Locale.ROOT);
+        String argument = words.length > 1 ? words[1] : "";
+        switch (command) {
+            case "NEW":
+                return newGame(argument.toUpperCase(Locale.ROOT));
+            case "ATTACK":
+                return attack(argument);
+            case "SAVE":
+                return save(argument);
+            case "LOAD":
+                return load(argument);
+            case "PRINT":
+                return print();
+            case "HOST":
+                return "OK HOSTING " + registry.register(game);
+            case "JOIN":
+                return join(argument);
+            case "HELP":
+                return "OK NEW DEFAULT|RANDOM, ATTACK cell, SAVE file, LOAD file, PRINT, HOST, JOIN id, QUIT";
+            case "QUIT":
+                close();
+                return "OK BYE";
+            default:
+                return "ERR Invalid option " + words[0];
+        }
+    }
+
+    private String newGame(String type) {
+        if (!type.equals("DEFAULT") && !type.equals("RANDOM")) {
+            return "ERR Expected NEW DEFAULT or NEW RANDOM";
+        }
+        game.newGame(type.equals("DEFAULT") ? 1 : 2, geometry);
+        return "OK " + game.read(controller -> controller.getGeometry() + " "
+                + controller.getShipList().size() + " ships");
+    }
+
+    private String attack(String cell) {
+        if (!game.isStarted()) {
+            return noGame();
+        }
+        Coordinates point = game.read(BattleShipController::getGeometry).parseCell(cell);
+        SharedGame.ShotResult result = point == null ? null : game.attack(point);
+        if (result == null || result.getOutcome() == SharedGame.Outcome.INVALID) {
+            return "ERR Invalid Coordinates " + cell;
+        }
+        switch (result.getOutcome()) {
+            case MISS:
+                return "OK MISS";
+            case HIT:
+                return "OK HIT";
+            case SUNK:
+                return "OK SUNK " + result.getSunkSize();
+            case WON:
+                return "OK WON " + result.getMoves();
+            case TRIED:
+                return "ERR Already tried " + cell;
+            default:
+                return "ERR Game was replaced";
+        }
+    }
+
+    private String join(String id) {
+        SharedGame joined = registry.get(id);
+        if (joined == null || joined == game || !joined.join()) {
+            return joined == game ? "ERR Already in game " + id : "ERR No game " + id;
+        }
+        leave();
+        game = joined;
+        return "OK JOINED " + id;
+    }
+
+    private String save(String fileName) {
+        if (!game.isStarted()) {
+            return noGame();
+        }
+        if (!FILE_NAME.matcher(fileName).matches()) {
+            return "ERR Expected a file name ending in .txt, .bsg or .bsj";
+        }
+        try {
+            game.save(saveDirectory.resolve(fileName).toString()).join();
+            return "OK SAVED " + fileName;
+        } catch (CompletionException ex) {
+            // the cause names the file on the server, so it is only logged
+            Logger.getLogger(GameSession.class.getName()).log(Level.WARNING, "Could not save " + fileName, ex.getCause());
+            return "ERR Could not save " + fileName;
+        }
+    }
+
+    private String load(String fileName) {
+        if (!FILE_NAME.matcher(fileName).matches()) {
+            return "ERR Expected a file name ending in .txt, .bsg or .bsj";
+        }
+        try {
+            game.load(saveDirectory.resolve(fileName).toString());
+            return "OK LOADED " + game.read(controller -> controller.getGeometry() + " "
+                    + controller.numberOfActiveShips() + " ships left");
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof NoSuchFileException) {
+                return "ERR No save file " + fileName;
+            }
+            Logger.getLogger(GameSession.class.getName()).log(Level.WARNING, "Could not load " + fileName, ex.getCause());
+            return "ERR Invalid save file " + fileName;
+        }
+    }
+
+    private String print() {
+        if (!game.isStarted()) {
+            return noGame();
+        }
+        // checked under the same lock as the grid, as a LOAD may change the board size
+        return game.read(controller -> controller.getGeometry().getCells() > MAX_PRINT_CELLS
+                ? "ERR Board " + controller.getGeometry() + " is too large to print, the limit is "
+                + MAX_PRINT_CELLS + " cells"
+                : grid(controller) + "OK");
+    }
+
+    /**
+     * @return the board as the CLI prints it, one line per row
+     */
+    private String grid(BattleShipController controller) {
+        BoardGeometry current = controller.getGeometry();
+        StringBuilder text = new StringBuilder();
+        text.append(' ');
+        for (int column = 1; column <= current.getWidth(); column++) {
+            text.append(' ').append(column);
+        }
+        text.append('\n');
+        for (int row = 0; row < current.getHeight(); row++) {
+            text.append(BoardGeometry.rowLabel(row));
+            for (int column = 0; column < current.getWidth(); column++) {
+                Coordinates point = Coordinates.of(column, row);
+                text.append(' ').append(controller.isHit(point) ? SHOT
+                        : controller.positionTried(point) ? MISS : EMPTY);
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    private String noGame() {
+        return "ERR No game, send NEW DEFAULT or NEW RANDOM";
+    }
+
+    /**
+     * @return true once the client has quit
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Leave the session's game. The shared persistence service is left
+     * running
+     */
+    public void close() {
+        if (!closed) {
+            closed = true;
+            leave();
+        }
+    }
+
+    /**
+     * Leave the current game, forgetting it and stopping its journal if this
+     * was its last player
+     */
+    private void leave() {
+        if (game.leave()) {
+            registry.remove(game);
+        }
+    }
+}
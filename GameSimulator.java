@@ -0,0 +1,156 @@
+package battleship;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+public class GameSimulator {
+
+    // games played by one task before it stops splitting
+    private static final long CHUNK = 256;
+
+    private final int typeOfGame;
+    private final BoardGeometry geometry;
+    private final Function<RandomGenerator, Shooter> shooterFactory;
+    private final int parallelism;
+    private final SplittableRandom random;
+
+    public GameSimulator(int typeOfGame, Supplier<Shooter> shooterFactory) {
+        this(typeOfGame, BoardGeometry.DEFAULT, shooterFactory, Runtime.getRuntime().availableProcessors());
+    }
+
+    public GameSimulator(int typeOfGame, BoardGeometry geometry, Supplier<Shooter> shooterFactory, int parallelism) {
+        this(typeOfGame, geometry, random -> shooterFactory.get(), parallelism, new SplittableRandom());
+    }
+
+    /**
+     * Simulate games reproducibly. Every chunk of games gets its own
+     * generator split from the seed in a fixed order, so the same seed gives
+     * the same games and results whatever the parallelism
+     *
+     * @param shooterFactory creates a shooter drawing from the given
+     * generator
+     * @param seed seed every fleet and shot is derived from
+     */
+    public GameSimulator(int typeOfGame, BoardGeometry geometry, Function<RandomGenerator, Shooter> shooterFactory,
+            int parallelism, long seed) {
+        this(typeOfGame, geometry, shooterFactory, parallelism, new SplittableRandom(seed));
+    }
+
+    private GameSimulator(int typeOfGame, BoardGeometry geometry, Function<RandomGenerator, Shooter> shooterFactory,
+            int parallelism, SplittableRandom random) {
+        this.typeOfGame = typeOfGame;
+        this.geometry = geometry;
+        this.shooterFactory = shooterFactory;
+        this.parallelism = parallelism;
+        this.random = random;
+    }
+
+    /**
+     * Play complete games headlessly on a fork/join pool. Each worker thread
+     * keeps its own model and reuses it for every game it plays. Each chunk
+     * of games draws from its own split generator, so workers never share
+     * one
+     *
+     * @param games number of games to play
+     * @return games per second, mean moves and the distribution of moves
+     */
+    public SimulationReport run(long games) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+        try {
+            long start = System.nanoTime();
+            SimulationReport report = pool.invoke(new SimulationTask(workers, games, random.split()));
+            return report.withElapsed(System.nanoTime() - start);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Play one game to the end
+     *
+     * @param model model to play on, it is initialised with a new game
+     * @param shooter shooter choosing every attack
+     * @param typeOfGame the type of Game
+     * @param geometry the width and height of the board
+     * @return number of moves taken to sink every ship
+     * @throws IllegalStateException if the shooter tries every cell without
+     * winning
+     */
+    public static int playGame(BattleShipModel model, Shooter shooter, int typeOfGame, BoardGeometry geometry) {
+        model.initialise(typeOfGame, geometry);
+        shooter.newGame(model);
+        int moves = 0;
+        while (!model.isGameOver()) {
+            if (moves == geometry.getCells()) {
+                throw new IllegalStateException("Shooter did not win after trying every cell");
+            }
+            Coordinates shot = shooter.nextShot();
+            boolean hit = model.attack(shot);
+            shooter.shotResolved(shot, hit, model.getLastSunk());
+            moves++;
+        }
+        return moves;
+    }
+
+    /**
+     * Model owned by a single worker thread
+     */
+    private class Worker {
+
+        private final BattleShipModel model = new BattleShipModel();
+
+        /**
+         * Play a chunk of games with fleets and shots drawn from the chunk's
+         * generator
+         */
+        private SimulationReport play(long games, SplittableRandom chunkRandom) {
+            Shooter shooter = shooterFactory.apply(chunkRandom.split());
+            model.setRandom(chunkRandom);
+            long[] moveCounts = new long[Math.min(geometry.getCells(), 1024) + 1];
+            for (long i = 0; i < games; i++) {
+                int moves = playGame(model, shooter, typeOfGame, geometry);
+                if (moves >= moveCounts.length) {
+                    moveCounts = Arrays.copyOf(moveCounts, Math.max(moves + 1, moveCounts.length * 2));
+                }
+                moveCounts[moves]++;
+            }
+            return SimulationReport.of(moveCounts);
+        }
+    }
+
+    /**
+     * Splits the games in half until a chunk is small enough to play. The
+     * generator is split along with the games, before either half runs
+     */
+    private class SimulationTask extends RecursiveTask<SimulationReport> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ThreadLocal<Worker> workers;
+        private final long games;
+        private final SplittableRandom random;
+
+        private SimulationTask(ThreadLocal<Worker> workers, long games, SplittableRandom random) {
+            this.workers = workers;
+            this.games = games;
+            this.random = random;
+        }
+
+        @Override
+        protected SimulationReport compute() {
+            if (games <= CHUNK) {
+                return workers.get().play(games, random);
+            }
+            SimulationTask left = new SimulationTask(workers, games / 2, random.split());
+            SimulationTask right = new SimulationTask(workers, games - games / 2, random);
+            left.fork();
+            return right.compute().merge(left.join());
+        }
+    }
+}
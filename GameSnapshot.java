@@ -0,0 +1,68 @@
+package battleship;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of a game: the board size, the cells of every ship and the
+ * ordered move history. Coordinates are immutable, so a snapshot shares them
+ * with the model, but it copies the lists holding them: taking one costs time
+ * and memory in proportion to the fleet's cells plus the moves played. That
+ * is small enough to do on the UI thread for a game on a normal board.
+ */
+public final class GameSnapshot {
+
+    private final BoardGeometry geometry;
+    private final List<List<Coordinates>> fleet;
+    private final List<Coordinates> moves;
+
+    private GameSnapshot(BoardGeometry geometry, List<List<Coordinates>> fleet, List<Coordinates> moves) {
+        this.geometry = geometry;
+        this.fleet = fleet;
+        this.moves = moves;
+    }
+
+    /**
+     * @param model model holding the game
+     * @return snapshot of the model's game as it is now
+     */
+    public static GameSnapshot of(BattleShipModel model) {
+        List<List<Coordinates>> fleet = new ArrayList<>(model.getShipList().size());
+        for (Ship ship : model.getShipList()) {
+            fleet.add(Collections.unmodifiableList(new ArrayList<>(ship.getPosition())));
+        }
+        return new GameSnapshot(model.getGeometry(), Collections.unmodifiableList(fleet),
+                Collections.unmodifiableList(new ArrayList<>(model.getCoordinatesesTried())));
+    }
+
+    /**
+     * Replace the model's game with the one in this snapshot
+     *
+     * @param model model to restore the game into
+     */
+    public void restoreInto(BattleShipModel model) {
+        model.restoreGame(geometry, fleet, moves);
+    }
+
+    /**
+     * @return the width and height of the board
+     */
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * @return the coordinates of each ship
+     */
+    public List<List<Coordinates>> getFleet() {
+        return fleet;
+    }
+
+    /**
+     * @return every move in the order it was played
+     */
+    public List<Coordinates> getMoves() {
+        return moves;
+    }
+}
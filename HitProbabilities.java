@@ -0,0 +1,83 @@
+package battleship;
+
+/**
+ * Chance of hitting a ship by attacking each cell, worked out by
+ * ExactSolver. Counted exactly the bounds equal the probability; estimated
+ * by sampling they are a 95% confidence interval. When sampling kept no
+ * arrangement the chances are DensitySolver's estimate and the bounds are 0
+ * and 1.
+ */
+public final class HitProbabilities {
+
+    private final double[] probabilities;
+    private final double[] lowerBounds;
+    private final double[] upperBounds;
+    private final boolean exact;
+    private final long arrangements;
+    private final int bestCell;
+
+    HitProbabilities(double[] probabilities, double[] lowerBounds, double[] upperBounds, boolean exact,
+            long arrangements, int bestCell) {
+        this.probabilities = probabilities;
+        this.lowerBounds = lowerBounds;
+        this.upperBounds = upperBounds;
+        this.exact = exact;
+        this.arrangements = arrangements;
+        this.bestCell = bestCell;
+    }
+
+    /**
+     * @param cell index of the cell
+     * @return chance a ship covers the cell, 0 for cells already attacked
+     */
+    public double getProbability(int cell) {
+        return probabilities[cell];
+    }
+
+    /**
+     * @param cell index of the cell
+     * @return lowest chance the cell could have
+     */
+    public double getLowerBound(int cell) {
+        return lowerBounds[cell];
+    }
+
+    /**
+     * @param cell index of the cell
+     * @return highest chance the cell could have
+     */
+    public double getUpperBound(int cell) {
+        return upperBounds[cell];
+    }
+
+    /**
+     * @return a copy of the chance of every cell, indexed by cell
+     */
+    public double[] getProbabilities() {
+        return probabilities.clone();
+    }
+
+    /**
+     * @return true if every arrangement was counted, false if the chances
+     * were estimated by sampling
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * @return number of fleet arrangements consistent with the game when
+     * exact, otherwise the number of consistent samples drawn, 0 if the
+     * chances are DensitySolver's estimate
+     */
+    public long getArrangements() {
+        return arrangements;
+    }
+
+    /**
+     * @return index of the cell not yet attacked with the highest chance
+     */
+    public int getBestCell() {
+        return bestCell;
+    }
+}
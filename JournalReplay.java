@@ -0,0 +1,176 @@
+package battleship;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JournalReplay implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final BattleShipModel model;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private long validLength;
+    private boolean finished;
+
+    private JournalReplay(BattleShipModel model, FileChannel channel) {
+        this.model = model;
+        this.channel = channel;
+        buffer.flip();
+    }
+
+    /**
+     * Open a journal and restore the snapshot at its start into the model.
+     * The recorded moves are then applied with step or fastForward
+     *
+     * @param file journal file
+     * @param model model to restore the game into
+     * @return replay positioned at the first recorded move
+     * @throws IOException if the file cannot be read or is not a journal
+     */
+    public static JournalReplay open(Path file, BattleShipModel model) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        JournalReplay replay = new JournalReplay(model, channel);
+        try {
+            replay.readSnapshot();
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        return replay;
+    }
+
+    /**
+     * Replay a whole journal into the model
+     *
+     * @param file journal file
+     * @param model model to restore the game into
+     * @throws IOException if the file cannot be read or is not a journal
+     */
+    public static void replay(Path file, BattleShipModel model) throws IOException {
+        try (JournalReplay replay = open(file, model)) {
+            replay.fastForward();
+        }
+    }
+
+    private void readSnapshot() throws IOException {
+        if (!fill(MoveJournal.HEADER_BYTES) || buffer.getInt() != MoveJournal.MAGIC) {
+            throw new IOException("Not a BattleShip journal");
+        }
+        byte version = buffer.get();
+        if (version != MoveJournal.VERSION) {
+            throw new IOException("Unsupported journal version " + version);
+        }
+        int snapshotLength = buffer.getInt();
+        if (snapshotLength < 0 || snapshotLength > channel.size()) {
+            throw new IOException("Invalid snapshot length " + snapshotLength);
+        }
+        ByteBuffer snapshot = ByteBuffer.allocate(snapshotLength);
+        while (snapshot.hasRemaining()) {
+            if (!buffer.hasRemaining() && !fill(1)) {
+                throw new IOException("Truncated journal snapshot");
+            }
+            int chunk = Math.min(snapshot.remaining(), buffer.remaining());
+            ByteBuffer slice = buffer.slice();
+            slice.limit(chunk);
+            snapshot.put(slice);
+            buffer.position(buffer.position() + chunk);
+        }
+        snapshot.flip();
+        BinaryGameFormat.decode(snapshot, model);
+        validLength = MoveJournal.HEADER_BYTES + snapshotLength;
+    }
+
+    /**
+     * Apply the next recorded move through BattleShipModel.attack, so every
+     * listener of the model sees it as it happens
+     *
+     * @return false if there are no more moves
+     * @throws IOException if the file cannot be read
+     */
+    public boolean step() throws IOException {
+        int cell = nextCell();
+        if (cell < 0) {
+            return false;
+        }
+        model.attack(Coordinates.of(model.getGeometry(), cell));
+        return true;
+    }
+
+    /**
+     * Apply every remaining move in one pass, sending listeners a single
+     * gameReset instead of an event per move
+     *
+     * @return number of moves applied
+     * @throws IOException if the file cannot be read
+     */
+    public int fastForward() throws IOException {
+        BoardGeometry geometry = model.getGeometry();
+        List<Coordinates> moves = new ArrayList<>(model.getCoordinatesesTried());
+        int applied = 0;
+        for (int cell = nextCell(); cell >= 0; cell = nextCell()) {
+            moves.add(Coordinates.of(geometry, cell));
+            applied++;
+        }
+        List<List<Coordinates>> fleet = new ArrayList<>();
+        for (Ship ship : model.getShipList()) {
+            fleet.add(ship.getPosition());
+        }
+        model.restoreGame(geometry, fleet, moves);
+        return applied;
+    }
+
+    /**
+     * @return length of the journal up to the last complete, valid record
+     * read so far
+     */
+    public long getValidLength() {
+        return validLength;
+    }
+
+    /**
+     * @return the next recorded cell or -1 at the end of the journal or at a
+     * torn or zeroed record
+     */
+    private int nextCell() throws IOException {
+        if (finished || !fill(MoveJournal.RECORD_BYTES)) {
+            finished = true;
+            return -1;
+        }
+        int cell = buffer.getInt() - 1;
+        if (cell < 0 || cell >= model.getGeometry().getCells()) {
+            finished = true;
+            return -1;
+        }
+        validLength += MoveJournal.RECORD_BYTES;
+        return cell;
+    }
+
+    /**
+     * @return true if at least the given number of bytes are buffered
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
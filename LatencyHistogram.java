@@ -0,0 +1,181 @@
+package battleship;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Histogram of latencies with buckets laid out like HdrHistogram: exact
+ * below 128ns, then 64 linear buckets for each power of two, so any value is
+ * reported within 1/64, about 1.6%, of what was recorded. Each thread
+ * records into one of a few stripes picked by its id, so threads on
+ * different cores rarely touch the same counters; the stripes are only
+ * added together when the histogram is read. Recording never locks, and
+ * allocates only the first time a stripe is used.
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    private static final int BUCKETS = index(Long.MAX_VALUE) + 1;
+    // each stripe keeps its total and maximum after the buckets
+    private static final int TOTAL = BUCKETS, MAX = BUCKETS + 1;
+    private static final int STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+
+    private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>(STRIPES);
+
+    /**
+     * @param nanos latency to record, negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        AtomicLongArray stripe = stripe();
+        stripe.getAndIncrement(index(value));
+        stripe.getAndAdd(TOTAL, value);
+        long max;
+        while (value > (max = stripe.get(MAX)) && !stripe.compareAndSet(MAX, max, value)) {
+            // another thread raised the maximum, compare again
+        }
+    }
+
+    /**
+     * @return stripe of the calling thread, allocated on first use
+     */
+    private AtomicLongArray stripe() {
+        long id = Thread.currentThread().getId();
+        int index = (int) (id ^ id >>> 32) * 0x9E3779B9 >>> 16 & STRIPES - 1;
+        AtomicLongArray stripe = stripes.get(index);
+        if (stripe == null) {
+            stripes.compareAndSet(index, null, new AtomicLongArray(BUCKETS + 2));
+            stripe = stripes.get(index);
+        }
+        return stripe;
+    }
+
+    /**
+     * @return sum of one slot over every stripe
+     */
+    private long sum(int slot) {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            AtomicLongArray stripe = stripes.get(i);
+            if (stripe != null) {
+                sum += stripe.get(slot);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return bucket of the value
+     */
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * @return largest value which falls in the bucket
+     */
+    private static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / HALF_SUB_BUCKETS - 1;
+        long subBucket = index - shift * HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * @param percentile percentile between 0 and 100
+     * @return latency in nanoseconds which that percentage of the recorded
+     * values do not exceed, or 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += sum(i);
+            if (seen >= target) {
+                return Math.min(highestValue(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    @Override
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += sum(i);
+        }
+        return count;
+    }
+
+    @Override
+    public long getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : sum(TOTAL) / count;
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getP90Nanos() {
+        return getValueAtPercentile(90);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getP999Nanos() {
+        return getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getMaxNanos() {
+        long max = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            AtomicLongArray stripe = stripes.get(i);
+            if (stripe != null) {
+                max = Math.max(max, stripe.get(MAX));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Forget every recorded value. Values recorded while the reset runs may
+     * be partly kept
+     */
+    @Override
+    public void reset() {
+        for (int i = 0; i < STRIPES; i++) {
+            AtomicLongArray stripe = stripes.get(i);
+            if (stripe != null) {
+                for (int slot = 0; slot < BUCKETS + 2; slot++) {
+                    stripe.set(slot, 0);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count %d, mean %dns, p50 %dns, p99 %dns, max %dns",
+                getCount(), getMeanNanos(), getP50Nanos(), getP99Nanos(), getMaxNanos());
+    }
+}
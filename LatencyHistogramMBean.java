@@ -0,0 +1,24 @@
+package battleship;
+
+/**
+ * Latency of one operation as published over JMX, every value in
+ * nanoseconds
+ */
+public interface LatencyHistogramMBean {
+
+    long getCount();
+
+    long getMeanNanos();
+
+    long getP50Nanos();
+
+    long getP90Nanos();
+
+    long getP99Nanos();
+
+    long getP999Nanos();
+
+    long getMaxNanos();
+
+    void reset();
+}
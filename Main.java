@@ -1,6 +1,10 @@
 package battleship;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Scanner;
+import java.util.function.Function;
+import java.util.random.RandomGenerator;
 import javafx.application.Application;
 
 public class Main {
@@ -8,19 +12,24 @@ public class Main {
     /**
      * Main method allows user to select which view they would like to use
      *
-     * @param args
+     * @param args optional board size written as WIDTHxHEIGHT, for example
+     * 20x20
      */
     public static void main(String[] args) {
+        BoardGeometry geometry = args.length > 0 ? BoardGeometry.parse(args[0]) : BoardGeometry.DEFAULT;
         Scanner kb = new Scanner(System.in);
         System.out.println("Select Game Version ");
         System.out.println("1: Battleship CLI");
         System.out.println("2: Battleship GUI");
+        System.out.println("3: Headless simulation");
+        System.out.println("4: Game server");
         boolean validOption = false;
         while (!validOption) {
             int option = kb.nextInt();
             switch (option) {
                 case 1:
-                    BattleShipViewCLI battleShipViewCLI = new BattleShipViewCLI();
+                    BattleShipViewCLI battleShipViewCLI = new BattleShipViewCLI(geometry,
+                            Boolean.getBoolean("battleship.ansi"));
                     battleShipViewCLI.newGameCLI();
                     validOption = true;
                     break;
@@ -28,6 +37,58 @@ public class Main {
                     Application.launch(BattleShipViewGUI.class, args);
                     validOption = true;
                     break;
+                case 3:
+                    System.out.println("Number of games to simulate");
+                    long games = kb.nextLong();
+                    System.out.println("1: Default Games");
+                    System.out.println("2: Random Games");
+                    int typeOfGame = kb.nextInt();
+                    System.out.println("1: Random Shooter");
+                    System.out.println("2: Probability Shooter");
+                    System.out.println("3: Cached Density Solver");
+                    System.out.println("4: Cached Exact Solver");
+                    int shooterType = kb.nextInt();
+                    System.out.println("Seed, or 0 for a random seed");
+                    long seed = kb.nextLong();
+                    long simulationSeed = seed != 0 ? seed : System.nanoTime();
+                    // solvers depend only on the position, so sharing one cache keeps seeded runs repeatable
+                    SolverCache cache = new SolverCache();
+                    if (shooterType >= 3) {
+                        GameMetrics.publish(cache, "type=SolverCache");
+                    }
+                    Function<RandomGenerator, Shooter> shooter = shooterType == 4
+                            ? random -> new SolverShooter(new ExactSolver(simulationSeed), cache)
+                            : shooterType == 3
+                            ? random -> new SolverShooter(new DensitySolver(simulationSeed), cache)
+                            : shooterType == 2 ? ProbabilityShooter::new : RandomShooter::new;
+                    GameSimulator simulator = new GameSimulator(typeOfGame, geometry, shooter,
+                            Runtime.getRuntime().availableProcessors(), simulationSeed);
+                    System.out.println(simulator.run(games));
+                    if (GameMetrics.ENABLED) {
+                        System.out.println(GameMetrics.summary());
+                    }
+                    if (shooterType >= 3) {
+                        System.out.println(cache);
+                    }
+                    validOption = true;
+                    break;
+                case 4:
+                    System.out.println("Port to listen on, 0 for " + GameServer.DEFAULT_PORT);
+                    int port = kb.nextInt();
+                    try (GameServer server = new GameServer(port == 0 ? GameServer.DEFAULT_PORT : port, geometry,
+                            Paths.get("saves"))) {
+                        server.start();
+                        System.out.println("Serving " + geometry + " games on port " + server.getPort()
+                                + ", enter 0 to stop");
+                        while (kb.nextInt() != 0) {
+                            System.out.println(server.getConnections() + " clients connected, "
+                                    + server.getBoardPool());
+                        }
+                    } catch (IOException ex) {
+                        System.out.println("Could not start server: " + ex.getMessage());
+                    }
+                    validOption = true;
+                    break;
                 default:
                     System.out.println("Invalid option");
                     break;
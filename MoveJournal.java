@@ -0,0 +1,240 @@
+package battleship;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Append-only journal of a game. The file starts with a header and a binary
+ * snapshot of the game when journaling began, followed by one four byte
+ * record per attack holding the attacked cell plus one, so a zero filled tail
+ * left by a crash is never read as a move.
+ *
+ * <pre>
+ * int    magic "BSGJ"
+ * byte   version
+ * int    snapshot length
+ * bytes  snapshot in BinaryGameFormat
+ * ints   cell + 1 for every attack after the snapshot
+ * </pre>
+ *
+ * Records are buffered and written with a single fsync once a batch is full
+ * or the batch delay has passed, so a crash loses at most the last batch.
+ * Every journal's delayed flushes run on one shared daemon thread.
+ */
+public class MoveJournal implements GameListener, Closeable {
+
+    public static final String EXTENSION = ".bsj";
+    public static final int DEFAULT_BATCH_SIZE = 32;
+    public static final long DEFAULT_BATCH_DELAY_MILLIS = 50;
+
+    static final int MAGIC = 0x4253474A;
+    static final byte VERSION = 1;
+    static final int HEADER_BYTES = 9;
+    static final int RECORD_BYTES = 4;
+
+    private static final ScheduledThreadPoolExecutor FLUSHER = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "move-journal-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        // closed journals drop their flush task at once rather than at its next run
+        FLUSHER.setRemoveOnCancelPolicy(true);
+    }
+
+    // replaced when the journal moves to another model holding the same game
+    private volatile BattleShipModel model;
+    private final FileChannel channel;
+    private final int batchSize;
+    private final ByteBuffer batch;
+    private final ScheduledFuture<?> flusher;
+    private boolean closed;
+
+    private MoveJournal(BattleShipModel model, FileChannel channel, int batchSize, long batchDelayMillis) {
+        this.model = model;
+        this.channel = channel;
+        this.batchSize = batchSize;
+        this.batch = ByteBuffer.allocateDirect(batchSize * RECORD_BYTES);
+        this.flusher = FLUSHER.scheduleWithFixedDelay(this::flushQuietly, batchDelayMillis, batchDelayMillis,
+                TimeUnit.MILLISECONDS);
+        model.addGameListener(this);
+    }
+
+    /**
+     * Start a new journal holding a snapshot of the model's current game and
+     * record every following attack
+     *
+     * @param model model holding the game
+     * @param file journal file, replaced if it exists
+     * @return journal attached to the model
+     * @throws IOException if the file cannot be written
+     */
+    public static MoveJournal start(BattleShipModel model, Path file) throws IOException {
+        return start(model, file, DEFAULT_BATCH_SIZE, DEFAULT_BATCH_DELAY_MILLIS);
+    }
+
+    /**
+     * @param batchSize number of records written with each fsync
+     * @param batchDelayMillis longest time a record waits before it is
+     * written
+     * @see #start(BattleShipModel, Path)
+     */
+    public static MoveJournal start(BattleShipModel model, Path file, int batchSize, long batchDelayMillis)
+            throws IOException {
+        ByteBuffer snapshot = BinaryGameFormat.encode(model);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).put(VERSION).putInt(snapshot.remaining()).flip();
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (snapshot.hasRemaining()) {
+                channel.write(snapshot);
+            }
+            channel.force(false);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        return new MoveJournal(model, channel, batchSize, batchDelayMillis);
+    }
+
+    /**
+     * Recover a journal after a restart: replay it into the model, drop any
+     * torn record at its end and keep appending to it
+     *
+     * @param model model to restore the game into
+     * @param file existing journal file
+     * @return journal attached to the model
+     * @throws IOException if the file cannot be read or is not a journal
+     */
+    public static MoveJournal resume(BattleShipModel model, Path file) throws IOException {
+        long validLength;
+        try (JournalReplay replay = JournalReplay.open(file, model)) {
+            replay.fastForward();
+            validLength = replay.getValidLength();
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        try {
+            channel.truncate(validLength);
+            // make the truncation durable first, or a crash could bring the torn tail back
+            channel.force(true);
+            channel.position(validLength);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        return new MoveJournal(model, channel, DEFAULT_BATCH_SIZE, DEFAULT_BATCH_DELAY_MILLIS);
+    }
+
+    /**
+     * Record another model holding the same game from now on, such as a
+     * shared game's model once a journal resumed into a detached model has
+     * been swapped in. The model must already hold the journaled game
+     *
+     * @param target model to record instead
+     */
+    public void transferTo(BattleShipModel target) {
+        model.removeGameListener(this);
+        model = target;
+        target.addGameListener(this);
+    }
+
+    /**
+     * Append the attacked cell. Attacks outside the board are not recorded
+     */
+    @Override
+    public void shotResolved(Coordinates points, int cell, boolean hit, Ship sunk) {
+        if (cell >= 0) {
+            append(cell);
+        }
+    }
+
+    /**
+     * A new game or a loaded game replaces the move history, so the journal
+     * detaches itself rather than mixing two games in one file
+     */
+    @Override
+    public void gameReset(BoardGeometry geometry) {
+        Logger.getLogger(MoveJournal.class.getName()).log(Level.WARNING,
+                "Game replaced, journaling stopped");
+        closeQuietly();
+    }
+
+    private synchronized void append(int cell) {
+        if (closed) {
+            return;
+        }
+        batch.putInt(cell + 1);
+        if (batch.position() == batchSize * RECORD_BYTES) {
+            flushQuietly();
+        }
+    }
+
+    /**
+     * Write every buffered record and fsync them as one batch
+     *
+     * @throws IOException if the records cannot be written
+     */
+    public synchronized void flush() throws IOException {
+        if (closed || batch.position() == 0) {
+            return;
+        }
+        batch.flip();
+        while (batch.hasRemaining()) {
+            channel.write(batch);
+        }
+        batch.clear();
+        channel.force(false);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException ex) {
+            Logger.getLogger(MoveJournal.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Flush any buffered records, stop recording and close the file
+     *
+     * @throws IOException if the records cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        model.removeGameListener(this);
+        flusher.cancel(false);
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            try {
+                flush();
+            } finally {
+                closed = true;
+                channel.close();
+            }
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ex) {
+            Logger.getLogger(MoveJournal.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+}
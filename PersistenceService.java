@@ -0,0 +1,172 @@
+package battleship;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves and loads games on a single background thread so the caller never
+ * waits on the disk. A save takes a snapshot of the model on the calling
+ * thread and writes it later; saves to a file which is still waiting to be
+ * written replace the waiting snapshot instead of queueing another write.
+ * Results are reported through futures completed on the callback executor,
+ * such as Platform::runLater for the GUI.
+ */
+public class PersistenceService implements Closeable {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final ExecutorService executor;
+    private final Executor callbackExecutor;
+    // saves which have been queued but not started, by file name
+    private final Map<String, PendingSave> pending = new HashMap<>();
+
+    private static class PendingSave {
+
+        private GameSnapshot snapshot;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private PendingSave(GameSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+
+    /**
+     * Create a service which completes its futures on its own thread
+     */
+    public PersistenceService() {
+        this(Runnable::run);
+    }
+
+    /**
+     * @param callbackExecutor executor the futures are completed on
+     */
+    public PersistenceService(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-persistence");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Snapshot the model's game and write it in the background, to a binary
+     * file if the name ends in .bsg and to a text file otherwise. The file is
+     * written beside its target and moved over it, so a failed save leaves
+     * the previous one intact
+     *
+     * @param model model holding the game, only read on the calling thread
+     * @param fileName String name of the file
+     * @return future completed once this snapshot, or a later one of the
+     * same file, has been written
+     */
+    public CompletableFuture<Void> save(BattleShipModel model, String fileName) {
+        GameSnapshot snapshot = GameSnapshot.of(model);
+        PendingSave save;
+        synchronized (pending) {
+            save = pending.get(fileName);
+            if (save != null) {
+                save.snapshot = snapshot;
+                return save.done;
+            }
+            save = new PendingSave(snapshot);
+            pending.put(fileName, save);
+        }
+        PendingSave queued = save;
+        executor.execute(() -> write(fileName, queued));
+        return queued.done;
+    }
+
+    private void write(String fileName, PendingSave save) {
+        GameSnapshot snapshot;
+        synchronized (pending) {
+            pending.remove(fileName);
+            snapshot = save.snapshot;
+        }
+        GameEvents.SaveCompleted event = new GameEvents.SaveCompleted();
+        event.begin();
+        long start = GameMetrics.start();
+        try {
+            Path target = Paths.get(fileName).toAbsolutePath();
+            Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+            // written straight from the snapshot, without rebuilding a model
+            if (BinaryGameFormat.isBinary(fileName)) {
+                BinaryGameFormat.write(snapshot, temporary);
+            } else {
+                TextGameWriter.write(snapshot.getGeometry(), snapshot.getFleet(), snapshot.getMoves(),
+                        temporary.toString());
+            }
+            GameMetrics.record(GameMetrics.Operation.SAVE, start);
+            try {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            event.finish(target, BinaryGameFormat.isBinary(fileName) ? "binary" : "text");
+            callbackExecutor.execute(() -> save.done.complete(null));
+        } catch (IOException | RuntimeException ex) {
+            callbackExecutor.execute(() -> save.done.completeExceptionally(ex));
+        }
+    }
+
+    /**
+     * Read a save file in the background, as a binary file if the name ends
+     * in .bsg, as a journal if it ends in .bsj and as a text file otherwise.
+     * Loads run after any save queued before them
+     *
+     * @param fileName String name of the file
+     * @return future completed with the loaded game
+     */
+    public CompletableFuture<GameSnapshot> load(String fileName) {
+        CompletableFuture<GameSnapshot> done = new CompletableFuture<>();
+        executor.execute(() -> {
+            GameEvents.LoadCompleted event = new GameEvents.LoadCompleted();
+            event.begin();
+            try {
+                BattleShipModel model = new BattleShipModel();
+                String format;
+                if (fileName.toLowerCase().endsWith(MoveJournal.EXTENSION)) {
+                    JournalReplay.replay(Paths.get(fileName), model);
+                    format = "journal";
+                } else if (BinaryGameFormat.isBinary(fileName)) {
+                    model.loadBinary(fileName);
+                    format = "binary";
+                } else {
+                    model.loadGame(fileName);
+                    format = "text";
+                }
+                event.finish(Paths.get(fileName), format);
+                GameSnapshot snapshot = GameSnapshot.of(model);
+                callbackExecutor.execute(() -> done.complete(snapshot));
+            } catch (IOException | RuntimeException ex) {
+                callbackExecutor.execute(() -> done.completeExceptionally(ex));
+            }
+        });
+        return done;
+    }
+
+    /**
+     * Finish every queued save and stop the background thread
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
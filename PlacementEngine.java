@@ -0,0 +1,305 @@
+package battleship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+import java.util.random.RandomGenerator;
+
+public class PlacementEngine {
+
+    // placement masks are only precomputed for small boards and short ships
+    private static final int MASK_LIMIT = 256;
+    private static final int MAX_MASK_LENGTH = 10;
+    private static final int MAX_SAMPLE_ATTEMPTS = 64;
+    private static final int MAX_FLEET_ATTEMPTS = 64;
+    private static final Map<BoardGeometry, PlacementEngine> ENGINES = new ConcurrentHashMap<>();
+
+    private final BoardGeometry geometry;
+    private final int words;
+    // masks[length][placement] is the set of cells covered by that placement
+    private final long[][][] masks;
+    // starts[length][placement] is the first cell, negative when vertical
+    private final int[][] starts;
+
+    public PlacementEngine() {
+        this(BoardGeometry.DEFAULT);
+    }
+
+    public PlacementEngine(BoardGeometry geometry) {
+        this.geometry = geometry;
+        this.words = (geometry.getCells() + 63) >>> 6;
+        if (geometry.getCells() <= MASK_LIMIT) {
+            int maxLength = Math.min(MAX_MASK_LENGTH, Math.max(geometry.getWidth(), geometry.getHeight()));
+            masks = new long[maxLength + 1][][];
+            starts = new int[maxLength + 1][];
+            for (int length = 1; length <= maxLength; length++) {
+                precompute(length);
+            }
+        } else {
+            masks = new long[0][][];
+            starts = new int[0][];
+        }
+    }
+
+    /**
+     * @return engine shared by every ship on a standard board
+     */
+    public static PlacementEngine getInstance() {
+        return forGeometry(BoardGeometry.DEFAULT);
+    }
+
+    /**
+     * @param geometry geometry of the board
+     * @return engine shared by every ship on a board of that geometry
+     */
+    public static PlacementEngine forGeometry(BoardGeometry geometry) {
+        return ENGINES.computeIfAbsent(geometry, PlacementEngine::new);
+    }
+
+    /**
+     * Enumerate every placement of a ship of the given length which lies
+     * inside the grid, horizontal placements first and then vertical ones
+     *
+     * @param length length of the ship
+     */
+    private void precompute(int length) {
+        int width = geometry.getWidth();
+        int height = geometry.getHeight();
+        List<long[]> lengthMasks = new ArrayList<>();
+        List<Integer> lengthStarts = new ArrayList<>();
+        for (int vertical = 0; vertical < 2; vertical++) {
+            int maxX = vertical == 0 ? width - length : width - 1;
+            int maxY = vertical == 0 ? height - 1 : height - length;
+            for (int y = 0; y <= maxY; y++) {
+                for (int x = 0; x <= maxX; x++) {
+                    long[] mask = new long[words];
+                    for (int i = 0; i < length; i++) {
+                        int cell = vertical == 0 ? geometry.index(x + i, y) : geometry.index(x, y + i);
+                        mask[cell >>> 6] |= 1L << cell;
+                    }
+                    lengthMasks.add(mask);
+                    int start = geometry.index(x, y);
+                    lengthStarts.add(vertical == 0 ? start : -start - 1);
+                }
+            }
+        }
+        masks[length] = lengthMasks.toArray(new long[0][]);
+        starts[length] = new int[lengthStarts.size()];
+        for (int i = 0; i < lengthStarts.size(); i++) {
+            starts[length][i] = lengthStarts.get(i);
+        }
+    }
+
+    /**
+     * @return an empty occupancy set to be filled by place
+     */
+    public CellSet emptyMask() {
+        return CellSet.forGeometry(geometry);
+    }
+
+    /**
+     * @param shipList ships which have already been assigned coordinates
+     * @return occupancy set of every cell covered by the ships
+     */
+    public CellSet occupancy(List<Ship> shipList) {
+        CellSet occupied = emptyMask();
+        for (Ship ship : shipList) {
+            for (Coordinates point : ship.getPosition()) {
+                if (geometry.contains(point.getX(), point.getY())) {
+                    occupied.add(geometry.index(point.getX(), point.getY()));
+                }
+            }
+        }
+        return occupied;
+    }
+
+    /**
+     * Pick a placement uniformly from every placement of the given length
+     * which does not cross an occupied cell, then mark its cells as occupied
+     *
+     * @param length length of the ship
+     * @param occupied occupancy set, updated with the chosen placement
+     * @param random source of randomness
+     * @return coordinates of the chosen placement
+     * @throws IllegalStateException if no free placement is left
+     */
+    public List<Coordinates> place(int length, CellSet occupied, RandomGenerator random) {
+        if (length < 1 || length > Math.max(geometry.getWidth(), geometry.getHeight())) {
+            throw new IllegalArgumentException("Ship of length " + length + " does not fit on a "
+                    + geometry + " board");
+        }
+        if (length < masks.length && occupied instanceof DenseCellSet) {
+            return placeByMask(length, ((DenseCellSet) occupied).getWords(), random);
+        }
+        return placeBySampling(length, occupied, random);
+    }
+
+    /**
+     * Scan the precomputed masks of the given length and pick one of the free
+     * placements
+     */
+    private List<Coordinates> placeByMask(int length, long[] occupied, RandomGenerator random) {
+        long[][] lengthMasks = masks[length];
+        int[] free = new int[lengthMasks.length];
+        int count = 0;
+        for (int p = 0; p < lengthMasks.length; p++) {
+            if (isFree(lengthMasks[p], occupied)) {
+                free[count++] = p;
+            }
+        }
+        if (count == 0) {
+            throw new IllegalStateException("No free placement left for a ship of length " + length);
+        }
+        int chosen = free[random.nextInt(count)];
+        long[] mask = lengthMasks[chosen];
+        for (int w = 0; w < words; w++) {
+            occupied[w] |= mask[w];
+        }
+        return toCoordinates(starts[length][chosen], length);
+    }
+
+    /**
+     * Placements on large boards are numbered rather than precomputed. A few
+     * uniform draws almost always find a free placement on a sparse board,
+     * and a crowded board falls back to one reservoir sampling pass over every
+     * placement, so both paths stay uniform and bounded
+     */
+    private List<Coordinates> placeBySampling(int length, CellSet occupied, RandomGenerator random) {
+        int width = geometry.getWidth();
+        int height = geometry.getHeight();
+        int horizontal = width >= length ? (width - length + 1) * height : 0;
+        int vertical = height >= length ? width * (height - length + 1) : 0;
+        int total = horizontal + vertical;
+        int chosen = -1;
+        int attempt = 0;
+        while (attempt < MAX_SAMPLE_ATTEMPTS && chosen < 0) {
+            int placement = random.nextInt(total);
+            if (isFree(toStart(placement, length, horizontal), length, occupied)) {
+                chosen = placement;
+            }
+            attempt++;
+        }
+        GameMetrics.placementRetries(chosen < 0 ? attempt : attempt - 1);
+        if (chosen < 0) {
+            int seen = 0;
+            for (int placement = 0; placement < total; placement++) {
+                if (isFree(toStart(placement, length, horizontal), length, occupied) && random.nextInt(++seen) == 0) {
+                    chosen = placement;
+                }
+            }
+        }
+        if (chosen < 0) {
+            throw new IllegalStateException("No free placement left for a ship of length " + length);
+        }
+        int start = toStart(chosen, length, horizontal);
+        int step = start < 0 ? width : 1;
+        int cell = start < 0 ? -start - 1 : start;
+        for (int i = 0; i < length; i++) {
+            occupied.add(cell + i * step);
+        }
+        return toCoordinates(start, length);
+    }
+
+    /**
+     * @param placement placement number, horizontal placements first
+     * @param length length of the ship
+     * @param horizontal number of horizontal placements
+     * @return first cell of the placement, negative when vertical
+     */
+    private int toStart(int placement, int length, int horizontal) {
+        if (placement < horizontal) {
+            int columns = geometry.getWidth() - length + 1;
+            return geometry.index(placement % columns, placement / columns);
+        }
+        placement -= horizontal;
+        return -geometry.index(placement % geometry.getWidth(), placement / geometry.getWidth()) - 1;
+    }
+
+    /**
+     * @return true if no cell of the placement starting at start is occupied
+     */
+    private boolean isFree(int start, int length, CellSet occupied) {
+        int step = start < 0 ? geometry.getWidth() : 1;
+        int cell = start < 0 ? -start - 1 : start;
+        for (int i = 0; i < length; i++) {
+            if (occupied.contains(cell + i * step)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Place a whole fleet. Placing ships one at a time can leave no room for
+     * a later ship, so the whole fleet is retried a bounded number of times
+     *
+     * @param lengths length of each ship in the fleet
+     * @param random source of randomness
+     * @return coordinates of each ship in the same order as lengths
+     * @throws IllegalStateException if the fleet cannot be placed
+     */
+    public List<List<Coordinates>> placeFleet(int[] lengths, RandomGenerator random) {
+        return placeFleet(lengths, random, attempts -> {
+        });
+    }
+
+    /**
+     * @param attempts told how many times the whole fleet was placed before
+     * it fitted
+     * @see #placeFleet(int[], RandomGenerator)
+     */
+    public List<List<Coordinates>> placeFleet(int[] lengths, RandomGenerator random, IntConsumer attempts) {
+        CellSet occupied = emptyMask();
+        for (int attempt = 0; attempt < MAX_FLEET_ATTEMPTS; attempt++) {
+            occupied.clear();
+            List<List<Coordinates>> fleet = new ArrayList<>(lengths.length);
+            try {
+                for (int length : lengths) {
+                    fleet.add(place(length, occupied, random));
+                }
+                GameMetrics.placementRetries(attempt);
+                attempts.accept(attempt + 1);
+                return fleet;
+            } catch (IllegalStateException ex) {
+                // retry the whole fleet from an empty board
+            }
+        }
+        GameMetrics.placementRetries(MAX_FLEET_ATTEMPTS);
+        throw new IllegalStateException("Fleet " + Arrays.toString(lengths) + " cannot fit on a "
+                + geometry + " board");
+    }
+
+    /**
+     * @param mask cells covered by a placement
+     * @param occupied cells already covered by ships
+     * @return true if the placement does not cross any occupied cell
+     */
+    private boolean isFree(long[] mask, long[] occupied) {
+        for (int w = 0; w < words; w++) {
+            if ((mask[w] & occupied[w]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param start first cell of the placement, negative when vertical
+     * @param length length of the ship
+     * @return coordinates covered by the placement
+     */
+    private List<Coordinates> toCoordinates(int start, int length) {
+        boolean vertical = start < 0;
+        int cell = vertical ? -start - 1 : start;
+        int x = geometry.x(cell);
+        int y = geometry.y(cell);
+        List<Coordinates> points = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            points.add(vertical ? Coordinates.of(x, y + i) : Coordinates.of(x + i, y));
+        }
+        return points;
+    }
+}
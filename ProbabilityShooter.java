@@ -0,0 +1,276 @@
+package battleship;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+public class ProbabilityShooter implements Shooter {
+
+    // a placement through an unresolved hit outweighs any number of others
+    private static final long HIT_WEIGHT = 1L << 20;
+
+    private final RandomGenerator random;
+    private final Map<Integer, Placements> placementsByLength = new HashMap<>();
+
+    private BoardGeometry geometry;
+    // density[cell] is the weighted number of open placements covering it
+    private long[] density;
+    private boolean[] shot;
+    private boolean[] closed;
+    private final Map<Integer, Integer> remaining = new HashMap<>();
+
+    public ProbabilityShooter() {
+        this(new SplittableRandom());
+    }
+
+    public ProbabilityShooter(RandomGenerator random) {
+        this.random = random;
+    }
+
+    /**
+     * Start a new density map from the ship sizes of the model's fleet and
+     * replay any shots already taken, such as those of a loaded game
+     *
+     * @throws IllegalArgumentException if the board is too large to hold a
+     * density map
+     */
+    @Override
+    public void newGame(BattleShipModel model) {
+        if (!model.getGeometry().isDense()) {
+            throw new IllegalArgumentException("ProbabilityShooter needs a board of at most 65536 cells");
+        }
+        if (!model.getGeometry().equals(geometry)) {
+            geometry = model.getGeometry();
+            placementsByLength.clear();
+            density = new long[geometry.getCells()];
+            shot = new boolean[geometry.getCells()];
+            closed = new boolean[geometry.getCells()];
+        } else {
+            Arrays.fill(density, 0L);
+            Arrays.fill(shot, false);
+            Arrays.fill(closed, false);
+        }
+        remaining.clear();
+        for (Ship ship : model.getShipList()) {
+            remaining.merge(ship.getSize(), 1, Integer::sum);
+        }
+        for (Map.Entry<Integer, Integer> entry : remaining.entrySet()) {
+            Placements placements = placementsFor(entry.getKey());
+            placements.reset();
+            for (int p = 0; p < placements.count; p++) {
+                addToDensity(placements, p, entry.getValue());
+            }
+        }
+        for (Coordinates tried : model.getCoordinatesesTried()) {
+            if (geometry.contains(tried.getX(), tried.getY())) {
+                resolve(geometry.index(tried.getX(), tried.getY()), model.isHit(tried));
+            }
+        }
+        for (Ship ship : model.getShipList()) {
+            if (ship.isSunk()) {
+                sink(ship);
+            }
+        }
+    }
+
+    /**
+     * @return the untried cell with the highest density, ties broken at
+     * random
+     */
+    @Override
+    public Coordinates nextShot() {
+        long best = -1;
+        int bestCell = -1, ties = 0;
+        for (int cell = 0; cell < density.length; cell++) {
+            if (!shot[cell]) {
+                if (density[cell] > best) {
+                    best = density[cell];
+                    bestCell = cell;
+                    ties = 1;
+                } else if (density[cell] == best && random.nextInt(++ties) == 0) {
+                    bestCell = cell;
+                }
+            }
+        }
+        if (bestCell < 0) {
+            throw new IllegalStateException("Every cell has already been tried");
+        }
+        return Coordinates.of(geometry, bestCell);
+    }
+
+    @Override
+    public void shotResolved(Coordinates point, boolean hit, Ship sunk) {
+        if (geometry.contains(point.getX(), point.getY())) {
+            resolve(geometry.index(point.getX(), point.getY()), hit);
+        }
+        if (sunk != null) {
+            sink(sunk);
+        }
+    }
+
+    /**
+     * @param point coordinates of a cell
+     * @return the current density of the cell
+     */
+    public long getDensity(Coordinates point) {
+        return density[geometry.index(point.getX(), point.getY())];
+    }
+
+    /**
+     * @return a copy of the density of every cell, indexed by cell
+     */
+    public long[] getDensityMap() {
+        return density.clone();
+    }
+
+    /**
+     * Update only the placements which cross the shot cell. A miss closes
+     * them, a hit raises their weight so the cells around it are targeted
+     */
+    private void resolve(int cell, boolean hit) {
+        if (shot[cell]) {
+            return;
+        }
+        shot[cell] = true;
+        if (!hit) {
+            close(cell);
+            return;
+        }
+        for (Map.Entry<Integer, Integer> entry : remaining.entrySet()) {
+            Placements placements = placementsFor(entry.getKey());
+            for (int i = placements.offsets[cell]; i < placements.offsets[cell + 1]; i++) {
+                int p = placements.ids[i];
+                if (!placements.blocked[p]) {
+                    addToDensity(placements, p, -entry.getValue());
+                    placements.hits[p]++;
+                    addToDensity(placements, p, entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * A sunk ship closes its cells and removes one ship of its length from
+     * the fleet still to be found
+     */
+    private void sink(Ship ship) {
+        for (Coordinates point : ship.getPosition()) {
+            int cell = geometry.index(point.getX(), point.getY());
+            shot[cell] = true;
+            close(cell);
+        }
+        Integer count = remaining.get(ship.getSize());
+        if (count == null) {
+            return;
+        }
+        Placements placements = placementsFor(ship.getSize());
+        for (int p = 0; p < placements.count; p++) {
+            if (!placements.blocked[p]) {
+                addToDensity(placements, p, -1);
+            }
+        }
+        if (count == 1) {
+            remaining.remove(ship.getSize());
+        } else {
+            remaining.put(ship.getSize(), count - 1);
+        }
+    }
+
+    /**
+     * No remaining ship can cover the cell, so block every placement through
+     * it
+     */
+    private void close(int cell) {
+        if (closed[cell]) {
+            return;
+        }
+        closed[cell] = true;
+        for (Map.Entry<Integer, Integer> entry : remaining.entrySet()) {
+            Placements placements = placementsFor(entry.getKey());
+            for (int i = placements.offsets[cell]; i < placements.offsets[cell + 1]; i++) {
+                int p = placements.ids[i];
+                if (!placements.blocked[p]) {
+                    addToDensity(placements, p, -entry.getValue());
+                    placements.blocked[p] = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the weight of a placement, scaled by the number of ships of its
+     * length, to every cell it covers
+     */
+    private void addToDensity(Placements placements, int p, int ships) {
+        long weight = ships * (1 + HIT_WEIGHT * placements.hits[p]);
+        int cell = placements.starts[p];
+        for (int i = 0; i < placements.length; i++, cell += placements.steps[p]) {
+            density[cell] += weight;
+        }
+    }
+
+    private Placements placementsFor(int length) {
+        return placementsByLength.computeIfAbsent(length, key -> new Placements(geometry, key));
+    }
+
+    /**
+     * Every placement of one ship length, with an index from each cell to
+     * the placements covering it
+     */
+    private static class Placements {
+
+        private final int length, count;
+        private final int[] starts, steps;
+        private final int[] offsets, ids;
+        private final boolean[] blocked;
+        private final int[] hits;
+
+        private Placements(BoardGeometry geometry, int length) {
+            this.length = length;
+            int width = geometry.getWidth(), height = geometry.getHeight();
+            int horizontal = width >= length ? (width - length + 1) * height : 0;
+            int vertical = height >= length && length > 1 ? width * (height - length + 1) : 0;
+            count = horizontal + vertical;
+            starts = new int[count];
+            steps = new int[count];
+            int p = 0;
+            for (int y = 0; y < height && horizontal > 0; y++) {
+                for (int x = 0; x + length <= width; x++, p++) {
+                    starts[p] = geometry.index(x, y);
+                    steps[p] = 1;
+                }
+            }
+            for (int y = 0; y + length <= height && vertical > 0; y++) {
+                for (int x = 0; x < width; x++, p++) {
+                    starts[p] = geometry.index(x, y);
+                    steps[p] = width;
+                }
+            }
+            offsets = new int[geometry.getCells() + 1];
+            for (p = 0; p < count; p++) {
+                for (int i = 0; i < length; i++) {
+                    offsets[starts[p] + i * steps[p] + 1]++;
+                }
+            }
+            for (int cell = 0; cell < geometry.getCells(); cell++) {
+                offsets[cell + 1] += offsets[cell];
+            }
+            ids = new int[count * length];
+            int[] next = offsets.clone();
+            for (p = 0; p < count; p++) {
+                for (int i = 0; i < length; i++) {
+                    ids[next[starts[p] + i * steps[p]]++] = p;
+                }
+            }
+            blocked = new boolean[count];
+            hits = new int[count];
+        }
+
+        private void reset() {
+            Arrays.fill(blocked, false);
+            Arrays.fill(hits, 0);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package battleship;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+public class RandomShooter implements Shooter {
+
+    private final RandomGenerator random;
+    private BattleShipModel model;
+    private BoardGeometry geometry;
+    // untried cells of small boards, the first remaining entries are unshot
+    private int[] cells;
+    private int remaining;
+
+    public RandomShooter() {
+        this(new SplittableRandom());
+    }
+
+    public RandomShooter(RandomGenerator random) {
+        this.random = random;
+    }
+
+    @Override
+    public void newGame(BattleShipModel model) {
+        this.model = model;
+        this.geometry = model.getGeometry();
+        if (geometry.isDense()) {
+            if (cells == null || cells.length != geometry.getCells()) {
+                cells = new int[geometry.getCells()];
+            }
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = i;
+            }
+            remaining = cells.length;
+        } else {
+            cells = null;
+        }
+    }
+
+    /**
+     * Small boards draw from a partial shuffle of the cells so every shot is
+     * a new cell. Large boards draw cells at random until an untried one
+     * comes up, which is almost always the first draw
+     */
+    @Override
+    public Coordinates nextShot() {
+        if (cells != null) {
+            while (remaining > 0) {
+                int pick = random.nextInt(remaining);
+                int cell = cells[pick];
+                cells[pick] = cells[--remaining];
+                cells[remaining] = cell;
+                Coordinates shot = Coordinates.of(geometry, cell);
+                if (!model.isPositionTried(shot)) {
+                    return shot;
+                }
+            }
+            throw new IllegalStateException("Every cell has already been tried");
+        }
+        Coordinates shot;
+        do {
+            shot = Coordinates.of(geometry, random.nextInt(geometry.getCells()));
+        } while (model.isPositionTried(shot));
+        return shot;
+    }
+
+    @Override
+    public void shotResolved(Coordinates shot, boolean hit, Ship sunk) {
+    }
+}
@@ -0,0 +1,60 @@
+package battleship;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Games shared between sessions, by id. Looking a game up never blocks and
+ * each game is guarded by its own lock, so there is no lock across games.
+ */
+public class SessionRegistry {
+
+    private final ConcurrentMap<String, SharedGame> games = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    /**
+     * Register a game so other sessions can join it. A game which is
+     * already registered keeps its id
+     *
+     * @param game game to share
+     * @return id of the game
+     */
+    public String register(SharedGame game) {
+        synchronized (game) {
+            if (game.getId() == null) {
+                String id = Long.toString(nextId.getAndIncrement());
+                game.setId(id);
+                games.put(id, game);
+            }
+            return game.getId();
+        }
+    }
+
+    /**
+     * @param id id of the game
+     * @return the game or null if no game has that id
+     */
+    public SharedGame get(String id) {
+        return games.get(id);
+    }
+
+    /**
+     * Forget a game once its last player has left
+     *
+     * @param game game to remove
+     */
+    public void remove(SharedGame game) {
+        String id = game.getId();
+        if (id != null) {
+            games.remove(id, game);
+        }
+    }
+
+    /**
+     * @return number of games registered
+     */
+    public int size() {
+        return games.size();
+    }
+}
@@ -0,0 +1,308 @@
+package battleship;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A game which several sessions may play at once. BattleShipModel is not
+ * thread safe, so every change to it is made while holding this game's own
+ * lock; separate games never share a lock. Before an attack takes the lock it
+ * claims its cell with a compare and set on a shot bitmap, so the first shot
+ * on a cell wins and repeated shots are turned away without locking.
+ */
+public class SharedGame {
+
+    /**
+     * What happened to one attack
+     */
+    public enum Outcome {
+        MISS, HIT, SUNK, WON, TRIED, INVALID, REPLACED
+    }
+
+    /**
+     * Result of one attack, with the size of the ship it sank and the number
+     * of moves played once it was applied
+     */
+    public static final class ShotResult {
+
+        private final Outcome outcome;
+        private final int sunkSize;
+        private final int moves;
+
+        private ShotResult(Outcome outcome, int sunkSize, int moves) {
+            this.outcome = outcome;
+            this.sunkSize = sunkSize;
+            this.moves = moves;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public int getSunkSize() {
+            return sunkSize;
+        }
+
+        public int getMoves() {
+            return moves;
+        }
+    }
+
+    private static final ShotResult TRIED = new ShotResult(Outcome.TRIED, 0, 0);
+    private static final ShotResult INVALID = new ShotResult(Outcome.INVALID, 0, 0);
+    private static final ShotResult REPLACED = new ShotResult(Outcome.REPLACED, 0, 0);
+
+    /**
+     * Cells claimed by attacks on one game. Dense boards use a bitmap of
+     * atomic words, larger boards a concurrent set of cell indexes
+     */
+    private static final class Claims {
+
+        private final BoardGeometry geometry;
+        private final AtomicLongArray words;
+        private final Set<Integer> cells;
+
+        private Claims(BattleShipModel model) {
+            geometry = model.getGeometry();
+            words = geometry.isDense() ? new AtomicLongArray((geometry.getCells() + 63) >>> 6) : null;
+            cells = geometry.isDense() ? null : ConcurrentHashMap.newKeySet();
+            for (Coordinates points : model.getCoordinatesesTried()) {
+                if (geometry.contains(points.getX(), points.getY())) {
+                    claim(geometry.index(points.getX(), points.getY()));
+                }
+            }
+        }
+
+        /**
+         * @return true if this call claimed the cell, false if it was
+         * claimed before
+         */
+        private boolean claim(int cell) {
+            if (words == null) {
+                return cells.add(cell);
+            }
+            long bit = 1L << cell;
+            int index = cell >>> 6;
+            long word;
+            do {
+                word = words.get(index);
+                if ((word & bit) != 0) {
+                    return false;
+                }
+            } while (!words.compareAndSet(index, word, word | bit));
+            return true;
+        }
+    }
+
+    private final BattleShipModel model = new BattleShipModel();
+    private final BattleShipController controller = new BattleShipController(model);
+    private final PersistenceService persistence;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicInteger players = new AtomicInteger();
+    private volatile Claims claims = new Claims(model);
+    private volatile boolean started;
+    private volatile String id;
+
+    /**
+     * @param persistence service the game is saved and loaded through
+     */
+    public SharedGame(PersistenceService persistence) {
+        this.persistence = persistence;
+        controller.setPersistenceService(persistence);
+    }
+
+    /**
+     * @param persistence service the game is saved and loaded through
+     * @param boardPool pool new games take their fleets from
+     */
+    public SharedGame(PersistenceService persistence, BoardPool boardPool) {
+        this(persistence);
+        model.setBoardPool(boardPool);
+    }
+
+    /**
+     * Attack a cell. Only the first attack on a cell reaches the model, any
+     * later one returns TRIED without taking the lock
+     *
+     * @param points coordinates to attack
+     * @return result of the attack
+     */
+    public ShotResult attack(Coordinates points) {
+        Claims current = claims;
+        if (!started || !current.geometry.contains(points.getX(), points.getY())) {
+            return INVALID;
+        }
+        if (!current.claim(current.geometry.index(points.getX(), points.getY()))) {
+            return TRIED;
+        }
+        lock.lock();
+        try {
+            if (current != claims) {
+                // a new or loaded game replaced the one this cell was claimed on
+                return REPLACED;
+            }
+            boolean hit = model.attack(points);
+            int moves = model.getCoordinatesesTried().size();
+            Ship sunk = model.getLastSunk();
+            if (!hit) {
+                return new ShotResult(Outcome.MISS, 0, moves);
+            }
+            if (sunk == null) {
+                return new ShotResult(Outcome.HIT, 0, moves);
+            }
+            return new ShotResult(model.isGameOver() ? Outcome.WON : Outcome.SUNK, sunk.getSize(), moves);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Start a new game on the board
+     *
+     * @param typeOfGame the type of Game
+     * @param geometry the width and height of the board
+     */
+    public void newGame(int typeOfGame, BoardGeometry geometry) {
+        lock.lock();
+        try {
+            controller.initialise(typeOfGame, geometry);
+            claims = new Claims(model);
+            started = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Load a save file into the game, waiting until it has been restored. The
+     * file is read without holding the lock, which is only taken to swap the
+     * loaded game in, so players keep playing while the load waits its turn
+     * on the persistence thread. A journal is resumed into a model of its
+     * own on the calling thread, then moved onto this game's model under the
+     * lock
+     *
+     * @param fileName String name of the file
+     * @throws CompletionException if the file cannot be loaded
+     */
+    public void load(String fileName) {
+        if (fileName.toLowerCase().endsWith(MoveJournal.EXTENSION)) {
+            BattleShipModel detached = new BattleShipModel();
+            MoveJournal journal;
+            GameEvents.LoadCompleted event = new GameEvents.LoadCompleted();
+            event.begin();
+            try {
+                journal = MoveJournal.resume(detached, Paths.get(fileName));
+            } catch (IOException ex) {
+                throw new CompletionException(ex);
+            }
+            event.finish(Paths.get(fileName), "journal");
+            GameSnapshot snapshot = GameSnapshot.of(detached);
+            lock.lock();
+            try {
+                controller.restoreGame(snapshot, journal);
+                claims = new Claims(model);
+                started = true;
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+        GameSnapshot snapshot = persistence.load(fileName).join();
+        lock.lock();
+        try {
+            controller.restoreGame(snapshot);
+            claims = new Claims(model);
+            started = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Snapshot the game and write it in the background. The lock is only
+     * held while the snapshot is taken
+     *
+     * @param fileName String name of the file
+     * @return future completed once the file has been written
+     */
+    public CompletableFuture<Void> save(String fileName) {
+        return read(controller -> controller.saveGameAsync(fileName));
+    }
+
+    /**
+     * Read or change the game while holding its lock
+     *
+     * @param action action run with the game's controller
+     * @return result of the action
+     */
+    public <T> T read(Function<BattleShipController, T> action) {
+        lock.lock();
+        try {
+            return action.apply(controller);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true once a game has been started or loaded
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * @return the id the game is registered under or null if it is private
+     */
+    public String getId() {
+        return id;
+    }
+
+    void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Add a player to the game
+     *
+     * @return false if the last player has already left and the game is
+     * closed
+     */
+    public boolean join() {
+        int current;
+        do {
+            current = players.get();
+            if (current < 0) {
+                return false;
+            }
+        } while (!players.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Remove a player from the game, closing it and stopping its journal
+     * once the last one has left
+     *
+     * @return true if the game was closed
+     */
+    public boolean leave() {
+        if (players.decrementAndGet() > 0 || !players.compareAndSet(0, -1)) {
+            return false;
+        }
+        lock.lock();
+        try {
+            controller.stopJournal();
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+}
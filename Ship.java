@@ -2,7 +2,8 @@ package battleship;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public class Ship {
 
@@ -25,97 +26,48 @@ public class Ship {
     }
 
     /**
-     * @return random coordinates of x and y between 0 and 9
-     */
-    private Coordinates getCoordinates() {
-        return new Coordinates(new Random().nextInt(10), new Random().nextInt(10));
-    }
-
-    /**
-     * @return random direction of either Vertical or Horizontal
-     */
-    private String getDirection() {
-        String[] directions = new String[]{"Vertical", "Horizontal"};
-        return directions[new Random().nextInt(2)];
-    }
-
-    /**
-     * Assigns the ship with coordinates and direction, then checks if the ship
-     * overlaps any other ships on the board. If it does overlap then it clears
-     * any instances of coordinates assigned to the ship. This will be looped
-     * until the ship is placed within the gird and not overlapping any ships
+     * Assigns the ship a placement on a 10x10 board
      *
-     * @param shipList List of ships to checked against new ship to check if
-     * there is any overlap
+     * @param shipList List of ships already on the board which the new ship
+     * must not overlap
+     * @throws IllegalStateException if there is no room left for the ship
+     * @see #setPosition(BoardGeometry, List)
      */
     public void setPosition(List<Ship> shipList) {
-        positionShip();
-        if (shipList.size() != 0) {
-            while (checkOverlap(shipList)) {
-                shipPoints.clear();
-                positionShip();
-            }
-        }
+        setPosition(BoardGeometry.DEFAULT, shipList);
     }
 
     /**
-     * Assigns the ship with the starting coordinate and a direction. This also
-     * checks if the ship is placed within the 10x10 grid
+     * Assigns the ship a placement chosen uniformly from every placement which
+     * lies within the grid and does not overlap any ship already on the board
+     *
+     * @param geometry the width and height of the board
+     * @param shipList List of ships already on the board which the new ship
+     * must not overlap
+     * @throws IllegalStateException if there is no room left for the ship
      */
-    private void positionShip() {
-        Coordinates startPoint = getCoordinates();
-        String direction = getDirection();
-
-        if ((startPoint.getY() + (size - 1) < 10 && direction.equals("Vertical"))
-                || (startPoint.getX() + (size - 1) < 10 && direction.equals("Horizontal"))) {
-            shipPoints.add(startPoint);
-            addRemainingCoordinates(shipPoints.get(0), direction);
-        } else {
-            positionShip();
-        }
+    public void setPosition(BoardGeometry geometry, List<Ship> shipList) {
+        setPosition(geometry, shipList, ThreadLocalRandom.current());
     }
 
     /**
-     * Adds the remaining coordinates to the ship depending on the direction of
-     * the ship
-     *
-     * @param nextPoint previous point + 1
-     * @param direction either Vertical or Horizontal
+     * @param random source of randomness, a seeded generator always gives the
+     * same placement for the same ships
+     * @see #setPosition(BoardGeometry, List)
      */
-    private void addRemainingCoordinates(Coordinates nextPoint, String direction) {
-        if (shipPoints.size() != size) {
-            Coordinates temp = new Coordinates(nextPoint.getX(), nextPoint.getY());
-            shipPoints.add(temp);
-            if (direction.equals("Vertical")) {
-                temp.setY(nextPoint.getY() + 1);
-            } else if (direction.equals("Horizontal")) {
-                temp.setX(nextPoint.getX() + 1);
-            }
-            addRemainingCoordinates(temp, direction);
-        }
+    public void setPosition(BoardGeometry geometry, List<Ship> shipList, RandomGenerator random) {
+        PlacementEngine engine = PlacementEngine.forGeometry(geometry);
+        placeAt(engine.place(size, engine.occupancy(shipList), random));
     }
 
     /**
-     * @param shipList List of ships to check if there is any overlap
-     * @return true if the ship being added to the board is intersecting another
-     * ship at any point
+     * Assigns the ship the given coordinates
+     *
+     * @param points coordinates of each segment of the ship in order
      */
-    private boolean checkOverlap(List<Ship> shipList) {
-        Boolean overlap = false;
-        if (!shipList.isEmpty()) {
-            for (int i = 0; i < shipList.size(); i++) {
-                Ship otherShips = shipList.get(i);
-                for (int j = 0; j < otherShips.size; j++) {
-                    for (int k = 0; k < shipPoints.size(); k++) {
-                        if ((otherShips.getPosition().get(j).getX() == shipPoints.get(k).getX()
-                                && otherShips.getPosition().get(j).getY() == shipPoints.get(k).getY())) {
-                            overlap = true;
-                        }
-                    }
-                }
-            }
-        }
-        return overlap;
+    public void placeAt(List<Coordinates> points) {
+        shipPoints.clear();
+        shipPoints.addAll(points);
     }
 
     /**
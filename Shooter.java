@@ -0,0 +1,25 @@
+package battleship;
+
+public interface Shooter {
+
+    /**
+     * Forget any previous game and start shooting at the model's new board
+     *
+     * @param model model holding the game to be played
+     */
+    void newGame(BattleShipModel model);
+
+    /**
+     * @return coordinates which have not been attacked in the current game
+     */
+    Coordinates nextShot();
+
+    /**
+     * Told after each attack so the shooter can update what it knows
+     *
+     * @param shot coordinates which were attacked
+     * @param hit true if a ship was hit
+     * @param sunk ship sunk by the attack or null
+     */
+    void shotResolved(Coordinates shot, boolean hit, Ship sunk);
+}
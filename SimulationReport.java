@@ -0,0 +1,121 @@
+package battleship;
+
+import java.util.Arrays;
+
+public final class SimulationReport {
+
+    private final long games;
+    private final long totalMoves;
+    // moveCounts[n] is the number of games which took n moves to win
+    private final long[] moveCounts;
+    private final long elapsedNanos;
+
+    public SimulationReport(long games, long totalMoves, long[] moveCounts, long elapsedNanos) {
+        this.games = games;
+        this.totalMoves = totalMoves;
+        this.moveCounts = moveCounts;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @param moveCounts number of games won in each number of moves
+     * @return report of games played without timing
+     */
+    public static SimulationReport of(long[] moveCounts) {
+        long games = 0, totalMoves = 0;
+        for (int moves = 0; moves < moveCounts.length; moves++) {
+            games += moveCounts[moves];
+            totalMoves += moves * moveCounts[moves];
+        }
+        return new SimulationReport(games, totalMoves, moveCounts, 0);
+    }
+
+    /**
+     * @param other report of games played by another worker
+     * @return report covering the games of both reports
+     */
+    public SimulationReport merge(SimulationReport other) {
+        long[] counts = Arrays.copyOf(moveCounts, Math.max(moveCounts.length, other.moveCounts.length));
+        for (int moves = 0; moves < other.moveCounts.length; moves++) {
+            counts[moves] += other.moveCounts[moves];
+        }
+        return new SimulationReport(games + other.games, totalMoves + other.totalMoves, counts,
+                Math.max(elapsedNanos, other.elapsedNanos));
+    }
+
+    /**
+     * @param nanos wall clock time taken to play the games
+     * @return the same report with its elapsed time set
+     */
+    public SimulationReport withElapsed(long nanos) {
+        return new SimulationReport(games, totalMoves, moveCounts, nanos);
+    }
+
+    /**
+     * @return number of games played
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * @return wall clock time taken to play the games in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return games played per second of wall clock time
+     */
+    public double getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return mean number of moves taken to win a game
+     */
+    public double getMeanMoves() {
+        return games == 0 ? 0 : (double) totalMoves / games;
+    }
+
+    /**
+     * @param moves number of moves
+     * @return number of games won in exactly that many moves
+     */
+    public long getGamesWonIn(int moves) {
+        return moves < moveCounts.length ? moveCounts[moves] : 0;
+    }
+
+    /**
+     * @param fraction fraction of games between 0 and 1
+     * @return smallest number of moves within which that fraction of games
+     * were won
+     */
+    public int getMovesPercentile(double fraction) {
+        long target = (long) Math.ceil(fraction * games);
+        long seen = 0;
+        for (int moves = 0; moves < moveCounts.length; moves++) {
+            seen += moveCounts[moves];
+            if (seen >= target && seen > 0) {
+                return moves;
+            }
+        }
+        return moveCounts.length - 1;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%d games in %.3f s, %.0f games/sec%n", games, elapsedNanos / 1e9, getGamesPerSecond()));
+        report.append(String.format("mean moves %.2f, p50 %d, p90 %d, p99 %d, max %d%n", getMeanMoves(),
+                getMovesPercentile(0.5), getMovesPercentile(0.9), getMovesPercentile(0.99), getMovesPercentile(1.0)));
+        report.append("moves : games").append(System.lineSeparator());
+        for (int moves = 0; moves < moveCounts.length; moves++) {
+            if (moveCounts[moves] != 0) {
+                report.append(String.format("%5d : %d%n", moves, moveCounts[moves]));
+            }
+        }
+        return report.toString();
+    }
+}
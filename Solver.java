@@ -0,0 +1,16 @@
+package battleship;
+
+/**
+ * Works out where the ships are likely to be from what a player can see of
+ * a game
+ */
+public interface Solver {
+
+    /**
+     * @param model model holding the game, only its visible state is used:
+     * the shots, their results, the ships sunk and the sizes of the fleet
+     * @return chance of a ship on every cell and the best cell to attack next
+     * @throws IllegalStateException if every cell has already been tried
+     */
+    SolverResult solve(BattleShipModel model);
+}
@@ -0,0 +1,196 @@
+package battleship;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of solver results keyed by the visible state of a game, so
+ * games which reach the same position, such as the empty board at the start
+ * of every simulated game, share one solve. The cache is split into segments
+ * by key, each a least recently used map behind its own lock, so threads
+ * solving different positions rarely wait on each other. Eviction is least
+ * recently used within a segment.
+ */
+public class SolverCache implements SolverCacheMBean {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final int MAX_SEGMENTS = 64;
+
+    private final int capacity;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final class Segment extends LinkedHashMap<Long, SolverResult> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int limit;
+
+        private Segment(int limit) {
+            super(16, 0.75f, true);
+            this.limit = limit;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, SolverResult> eldest) {
+            if (size() > limit) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public SolverCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity most results kept at once
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public SolverCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be positive, was " + capacity);
+        }
+        this.capacity = capacity;
+        int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(capacity));
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            // spread the capacity so the segments add up to it exactly
+            segments[i] = new Segment(capacity / count + (i < capacity % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * Key of everything a player can see of a game: the shots and their
+     * results, the ships sunk and where they were, and the sizes of the
+     * fleet. The key of each ship is added, so the key does not depend on
+     * the order of the fleet and two ships of a size do not cancel out
+     *
+     * @param model model holding the game
+     * @return 64 bit key of the visible state
+     */
+    public static long key(BattleShipModel model) {
+        long key = model.getStateHash();
+        for (Ship ship : model.getShipList()) {
+            key += Zobrist.shipSize(ship.getSize());
+            if (ship.isSunk()) {
+                key += Zobrist.ship(model.getGeometry(), ship.getPosition());
+            }
+        }
+        return key;
+    }
+
+    private Segment segment(long key) {
+        long spread = key ^ (key >>> 32);
+        return segments[(int) (spread ^ (spread >>> 16)) & (segments.length - 1)];
+    }
+
+    /**
+     * @param key key of a visible state
+     * @return the cached result or null if there is none
+     */
+    public SolverResult get(long key) {
+        Segment segment = segment(key);
+        SolverResult result;
+        synchronized (segment) {
+            result = segment.get(key);
+        }
+        if (result != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return result;
+    }
+
+    /**
+     * @param key key of a visible state
+     * @param result result of solving that state
+     */
+    public void put(long key, SolverResult result) {
+        Segment segment = segment(key);
+        synchronized (segment) {
+            segment.put(key, result);
+        }
+    }
+
+    /**
+     * Return the cached result for the model's visible state, solving and
+     * caching it on a miss. The solve runs without holding any lock, so two
+     * threads missing on the same state at once may both solve it
+     *
+     * @param model model holding the game
+     * @param solver solver to use on a miss
+     * @return result for the model's visible state
+     */
+    public SolverResult solve(BattleShipModel model, Solver solver) {
+        long key = key(model);
+        SolverResult result = get(key);
+        if (result == null) {
+            result = solver.solve(model);
+            put(key, result);
+        }
+        return result;
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRate() {
+        long lookups = getHits() + getMisses();
+        return lookups == 0 ? 0 : (double) getHits() / lookups;
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public int getSize() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Drop every cached result, the statistics are kept
+     */
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("solver cache hits %d, misses %d, hit rate %.1f%%, evictions %d, size %d of %d",
+                getHits(), getMisses(), getHitRate() * 100, getEvictions(), getSize(), capacity);
+    }
+}
@@ -0,0 +1,21 @@
+package battleship;
+
+/**
+ * Statistics of a SolverCache as published over JMX
+ */
+public interface SolverCacheMBean {
+
+    long getHits();
+
+    long getMisses();
+
+    double getHitRate();
+
+    long getEvictions();
+
+    int getSize();
+
+    int getCapacity();
+
+    void clear();
+}
@@ -0,0 +1,43 @@
+package battleship;
+
+/**
+ * Result of a Solver for one visible state. Results are immutable so one
+ * result can be shared by every game which reaches the same state.
+ */
+public final class SolverResult {
+
+    private final int bestCell;
+    private final double[] probabilities;
+
+    /**
+     * @param bestCell index of the cell to attack next
+     * @param probabilities chance of a ship on each cell, indexed by cell,
+     * copied by this constructor
+     */
+    public SolverResult(int bestCell, double[] probabilities) {
+        this.bestCell = bestCell;
+        this.probabilities = probabilities.clone();
+    }
+
+    /**
+     * @return index of the cell to attack next
+     */
+    public int getBestCell() {
+        return bestCell;
+    }
+
+    /**
+     * @param cell index of the cell
+     * @return chance of a ship on the cell
+     */
+    public double getProbability(int cell) {
+        return probabilities[cell];
+    }
+
+    /**
+     * @return a copy of the chance of a ship on every cell, indexed by cell
+     */
+    public double[] getProbabilities() {
+        return probabilities.clone();
+    }
+}
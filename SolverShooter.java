@@ -0,0 +1,45 @@
+package battleship;
+
+/**
+ * Shooter which attacks the best cell found by a solver, looking each
+ * position up in a cache first. Many shooters may share one cache, so a
+ * position solved in one game is reused by every later game reaching it.
+ */
+public class SolverShooter implements Shooter {
+
+    private final Solver solver;
+    private final SolverCache cache;
+    private BattleShipModel model;
+
+    /**
+     * @param solver solver used on a cache miss, only called from the thread
+     * playing this shooter's games
+     * @param cache cache of results, may be shared between threads
+     */
+    public SolverShooter(Solver solver, SolverCache cache) {
+        this.solver = solver;
+        this.cache = cache;
+    }
+
+    @Override
+    public void newGame(BattleShipModel model) {
+        this.model = model;
+    }
+
+    @Override
+    public Coordinates nextShot() {
+        Coordinates shot = Coordinates.of(model.getGeometry(), cache.solve(model, solver).getBestCell());
+        if (model.isPositionTried(shot)) {
+            // only possible if two positions share a key, so solve this one
+            shot = Coordinates.of(model.getGeometry(), solver.solve(model).getBestCell());
+        }
+        return shot;
+    }
+
+    /**
+     * Nothing to update, every shot is worked out from the model
+     */
+    @Override
+    public void shotResolved(Coordinates shot, boolean hit, Ship sunk) {
+    }
+}
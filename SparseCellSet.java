@@ -0,0 +1,30 @@
+package battleship;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class SparseCellSet implements CellSet {
+
+    // each chunk is a 4096 cell bitset, only chunks holding a cell exist
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_WORDS = (1 << CHUNK_BITS) >>> 6;
+
+    private final Map<Integer, long[]> chunks = new HashMap<>();
+
+    @Override
+    public boolean contains(int cell) {
+        long[] chunk = chunks.get(cell >>> CHUNK_BITS);
+        return chunk != null && (chunk[(cell >>> 6) & (CHUNK_WORDS - 1)] & (1L << cell)) != 0;
+    }
+
+    @Override
+    public void add(int cell) {
+        long[] chunk = chunks.computeIfAbsent(cell >>> CHUNK_BITS, key -> new long[CHUNK_WORDS]);
+        chunk[(cell >>> 6) & (CHUNK_WORDS - 1)] |= 1L << cell;
+    }
+
+    @Override
+    public void clear() {
+        chunks.clear();
+    }
+}
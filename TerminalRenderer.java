@@ -0,0 +1,229 @@
+package battleship;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Draws the CLI grid. Every frame is built in one reusable byte buffer and
+ * written with a single call. In ANSI mode the grid is drawn on the
+ * terminal's alternate screen and pinned to its top: the rows below it are
+ * made the scroll region, so menus and prompts scroll there without moving
+ * the grid. Each frame after the first then only moves the cursor to the
+ * cells which changed since the last frame.
+ */
+public class TerminalRenderer {
+
+    private static final byte[] ALTERNATE_SCREEN = "\u001b[?1049h".getBytes();
+    private static final byte[] MAIN_SCREEN = "\u001b[?1049l".getBytes();
+    private static final byte[] CLEAR_SCREEN = "\u001b[2J\u001b[H".getBytes();
+    private static final byte[] CLEAR_BELOW = "\u001b[J".getBytes();
+    private static final byte[] RESET_SCROLL_REGION = "\u001b[r".getBytes();
+
+    private final PrintStream out;
+    private final boolean ansi;
+    private BoardGeometry geometry;
+    private byte[] cells = new byte[0];
+    // cells changed since the last frame, may hold a cell more than once
+    private int[] dirty = new int[64];
+    private int dirtyCount;
+    private boolean fullRedraw = true;
+    // true once the alternate screen has been entered
+    private boolean alternateScreen;
+    private byte[] frame = new byte[1 << 12];
+    private int length;
+    // width of the row labels and of each column in ANSI mode
+    private int labelWidth, columnWidth;
+
+    /**
+     * @param out stream the frames are written to
+     * @param ansi true to repaint only changed cells with ANSI escape codes
+     */
+    public TerminalRenderer(PrintStream out, boolean ansi) {
+        this.out = out;
+        this.ansi = ansi;
+    }
+
+    /**
+     * Start a new grid of the given size with every cell set to empty
+     *
+     * @param geometry the width and height of the board
+     * @param empty character of a cell which has not been attacked
+     */
+    public void reset(BoardGeometry geometry, char empty) {
+        if (!geometry.equals(this.geometry)) {
+            this.geometry = geometry;
+            cells = new byte[geometry.getCells()];
+            labelWidth = BoardGeometry.rowLabel(geometry.getHeight() - 1).length();
+            columnWidth = Integer.toString(geometry.getWidth()).length() + 1;
+        }
+        Arrays.fill(cells, (byte) empty);
+        dirtyCount = 0;
+        fullRedraw = true;
+    }
+
+    /**
+     * @param x column of the cell
+     * @param y row of the cell
+     * @param value character to show in the cell
+     */
+    public void set(int x, int y, char value) {
+        int cell = geometry.index(x, y);
+        if (cells[cell] == value) {
+            return;
+        }
+        cells[cell] = (byte) value;
+        if (fullRedraw) {
+            return;
+        }
+        if (dirtyCount == dirty.length) {
+            if (dirtyCount >= cells.length / 4) {
+                // drawing this many cells one at a time costs more than a frame
+                fullRedraw = true;
+                return;
+            }
+            dirty = Arrays.copyOf(dirty, dirtyCount * 2);
+        }
+        dirty[dirtyCount++] = cell;
+    }
+
+    /**
+     * Write the grid, or in ANSI mode the cells changed since the last frame
+     */
+    public void render() {
+        length = 0;
+        if (!ansi) {
+            plainFrame();
+        } else if (fullRedraw) {
+            if (!alternateScreen) {
+                append(ALTERNATE_SCREEN);
+                alternateScreen = true;
+            }
+            append(CLEAR_SCREEN);
+            // scroll only the rows below the grid; this also homes the cursor
+            append((byte) 0x1b);
+            append((byte) '[');
+            appendNumber(geometry.getHeight() + 2);
+            append((byte) 'r');
+            alignedFrame();
+            append(CLEAR_BELOW);
+        } else {
+            for (int i = 0; i < dirtyCount; i++) {
+                int cell = dirty[i];
+                moveTo(geometry.y(cell) + 2, labelWidth + 2 + geometry.x(cell) * columnWidth);
+                append(cells[cell]);
+            }
+            moveTo(geometry.getHeight() + 2, 1);
+            append(CLEAR_BELOW);
+        }
+        dirtyCount = 0;
+        fullRedraw = false;
+        out.write(frame, 0, length);
+        out.flush();
+    }
+
+    /**
+     * Leave the alternate screen and give the whole terminal back to
+     * scrolling, if an ANSI frame has been drawn
+     */
+    public void close() {
+        if (!alternateScreen) {
+            return;
+        }
+        alternateScreen = false;
+        fullRedraw = true;
+        out.write(RESET_SCROLL_REGION, 0, RESET_SCROLL_REGION.length);
+        out.write(MAIN_SCREEN, 0, MAIN_SCREEN.length);
+        out.flush();
+    }
+
+    /**
+     * The grid as printGrid has always printed it: the column numbers, then
+     * each row label followed by its cells, each value followed by a space
+     */
+    private void plainFrame() {
+        append((byte) ' ');
+        append((byte) ' ');
+        for (int i = 1; i <= geometry.getWidth(); i++) {
+            appendNumber(i);
+            append((byte) ' ');
+        }
+        for (int row = 0; row < geometry.getHeight(); row++) {
+            append((byte) '\n');
+            appendAscii(BoardGeometry.rowLabel(row));
+            append((byte) ' ');
+            int start = row * geometry.getWidth();
+            for (int column = 0; column < geometry.getWidth(); column++) {
+                append(cells[start + column]);
+                append((byte) ' ');
+            }
+        }
+        append((byte) ' ');
+        appendAscii(System.lineSeparator());
+    }
+
+    /**
+     * The grid with every column padded to the same width, so each cell has
+     * a fixed position on the screen
+     */
+    private void alignedFrame() {
+        pad(labelWidth + 1);
+        for (int i = 1; i <= geometry.getWidth(); i++) {
+            int start = length;
+            appendNumber(i);
+            pad(columnWidth - (length - start));
+        }
+        append((byte) '\n');
+        for (int row = 0; row < geometry.getHeight(); row++) {
+            String label = BoardGeometry.rowLabel(row);
+            appendAscii(label);
+            pad(labelWidth + 1 - label.length());
+            int start = row * geometry.getWidth();
+            for (int column = 0; column < geometry.getWidth(); column++) {
+                append(cells[start + column]);
+                pad(columnWidth - 1);
+            }
+            append((byte) '\n');
+        }
+    }
+
+    private void moveTo(int row, int column) {
+        append((byte) 0x1b);
+        append((byte) '[');
+        appendNumber(row);
+        append((byte) ';');
+        appendNumber(column);
+        append((byte) 'H');
+    }
+
+    private void pad(int spaces) {
+        for (int i = 0; i < spaces; i++) {
+            append((byte) ' ');
+        }
+    }
+
+    private void appendNumber(int value) {
+        if (value >= 10) {
+            appendNumber(value / 10);
+        }
+        append((byte) ('0' + value % 10));
+    }
+
+    private void appendAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            append((byte) text.charAt(i));
+        }
+    }
+
+    private void append(byte[] bytes) {
+        for (byte b : bytes) {
+            append(b);
+        }
+    }
+
+    private void append(byte value) {
+        if (length == frame.length) {
+            frame = Arrays.copyOf(frame, length * 2);
+        }
+        frame[length++] = value;
+    }
+}
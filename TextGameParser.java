@@ -0,0 +1,295 @@
+package battleship;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single pass parser for the text save format written by
+ * BattleShipModel.saveGame. It reads the channel through one fixed buffer and
+ * never recurses, so memory and stack depth do not grow with the file.
+ *
+ * <pre>
+ * file        = [ "Board" width height ] { ship } [ "Coordinates" { cell } [ "END" ] ]
+ * ship        = "Ship" { cell } "END"
+ * cell        = "(" x "," y ")" ( "true" | "false" )
+ * </pre>
+ */
+public class TextGameParser {
+
+    private static final int BUFFER_SIZE = 1 << 13;
+    // ship counts and lengths are shorts in the binary format and journal
+    private static final int MAX_SHIPS = 0xFFFF;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private boolean endOfInput;
+    private int line = 1, column = 1;
+    // position of the token being read, used in error messages
+    private int tokenLine, tokenColumn;
+    // position of the cell last read by readCell
+    private int cellLine, cellColumn;
+
+    private BoardGeometry geometry = BoardGeometry.DEFAULT;
+    // ship cells and hit ship cells, created once the board size is known
+    private CellSet occupied, hitCells;
+    private final List<List<Coordinates>> fleet = new ArrayList<>();
+    private final List<Coordinates> hits = new ArrayList<>();
+    private final List<Coordinates> misses = new ArrayList<>();
+
+    public TextGameParser(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.flip();
+    }
+
+    /**
+     * Parse the whole save file and restore its game into the model. The
+     * moves are the hit ship cells in file order followed by the other
+     * coordinates tried, as the text format does not keep the move order.
+     * Ships may not be empty, overlap or number more than the binary format
+     * holds, and coordinates tried outside the ships may not lie on a ship
+     * cell which is not marked hit
+     *
+     * @param model model to restore the game into
+     * @throws GameFileException if the file is not a valid save, giving the
+     * line and column of the error
+     * @throws IOException if the channel cannot be read
+     */
+    public void parse(BattleShipModel model) throws IOException {
+        boolean first = true, coordinates = false;
+        skipWhitespace();
+        while (peek() != -1) {
+            String section = readWord();
+            if (section.equals("Board") && first) {
+                int boardLine = tokenLine, boardColumn = tokenColumn;
+                int width = readInt();
+                int height = readInt();
+                try {
+                    geometry = new BoardGeometry(width, height);
+                } catch (IllegalArgumentException ex) {
+                    throw new GameFileException(ex.getMessage(), boardLine, boardColumn);
+                }
+            } else if (section.equals("Ship") && !coordinates) {
+                readShip();
+            } else if (section.equals("Coordinates") && !coordinates) {
+                readCoordinates();
+                coordinates = true;
+            } else {
+                throw error("Unexpected " + section);
+            }
+            first = false;
+            skipWhitespace();
+        }
+        List<Coordinates> moves = new ArrayList<>(hits.size() + misses.size());
+        moves.addAll(hits);
+        moves.addAll(misses);
+        model.restoreGame(geometry, fleet, moves);
+    }
+
+    private void readShip() throws IOException {
+        if (fleet.size() == MAX_SHIPS) {
+            throw error("More than " + MAX_SHIPS + " ships");
+        }
+        createCellSets();
+        List<Coordinates> position = new ArrayList<>();
+        skipWhitespace();
+        while (peek() == '(') {
+            boolean shot = readCell(position);
+            Coordinates point = position.get(position.size() - 1);
+            int cell = geometry.index(point.getX(), point.getY());
+            if (occupied.contains(cell)) {
+                throw new GameFileException("Ship " + fleet.size() + " overlaps another ship at ("
+                        + point.getX() + ", " + point.getY() + ")", cellLine, cellColumn);
+            }
+            if (position.size() > MAX_SHIPS) {
+                throw new GameFileException("Ship " + fleet.size() + " is longer than " + MAX_SHIPS
+                        + " cells", cellLine, cellColumn);
+            }
+            occupied.add(cell);
+            if (shot) {
+                hitCells.add(cell);
+                hits.add(point);
+            }
+            skipWhitespace();
+        }
+        if (position.isEmpty()) {
+            startToken();
+            throw error("Expected ship coordinates");
+        }
+        expectWord("END");
+        fleet.add(position);
+    }
+
+    private void readCoordinates() throws IOException {
+        createCellSets();
+        skipWhitespace();
+        while (peek() == '(') {
+            readCell(misses);
+            Coordinates point = misses.get(misses.size() - 1);
+            int cell = geometry.index(point.getX(), point.getY());
+            if (occupied.contains(cell) && !hitCells.contains(cell)) {
+                throw new GameFileException("Coordinates (" + point.getX() + ", " + point.getY()
+                        + ") were tried but the ship there is not marked hit", cellLine, cellColumn);
+            }
+            skipWhitespace();
+        }
+        if (peek() == 'E') {
+            expectWord("END");
+        }
+    }
+
+    private void createCellSets() {
+        if (occupied == null) {
+            occupied = CellSet.forGeometry(geometry);
+            hitCells = CellSet.forGeometry(geometry);
+        }
+    }
+
+    /**
+     * Read one "( x , y ) flag" entry and add its coordinates to points
+     *
+     * @return the flag which follows the coordinates
+     */
+    private boolean readCell(List<Coordinates> points) throws IOException {
+        expect('(');
+        cellLine = tokenLine;
+        cellColumn = tokenColumn;
+        int x = readInt();
+        int xLine = tokenLine, xColumn = tokenColumn;
+        expect(',');
+        int y = readInt();
+        expect(')');
+        if (!geometry.contains(x, y)) {
+            throw new GameFileException("Coordinates (" + x + ", " + y + ") are outside the "
+                    + geometry + " board", xLine, xColumn);
+        }
+        points.add(Coordinates.of(x, y));
+        skipWhitespace();
+        startToken();
+        if (peek() == 't') {
+            expectWord("true");
+            return true;
+        }
+        expectWord("false");
+        return false;
+    }
+
+    private void expect(char expected) throws IOException {
+        skipWhitespace();
+        startToken();
+        if (read() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+    }
+
+    private void expectWord(String word) throws IOException {
+        skipWhitespace();
+        startToken();
+        for (int i = 0; i < word.length(); i++) {
+            if (read() != word.charAt(i)) {
+                throw error("Expected " + word);
+            }
+        }
+        int next = peek();
+        if (next != -1 && !Character.isWhitespace(next) && next != '(') {
+            throw error("Expected " + word);
+        }
+    }
+
+    /**
+     * @return the next run of letters, used for section names
+     */
+    private String readWord() throws IOException {
+        skipWhitespace();
+        startToken();
+        StringBuilder word = new StringBuilder();
+        while (Character.isLetter(peek())) {
+            word.append((char) read());
+        }
+        if (word.length() == 0) {
+            throw error("Expected Board, Ship or Coordinates");
+        }
+        return word.toString();
+    }
+
+    private int readInt() throws IOException {
+        skipWhitespace();
+        startToken();
+        boolean negative = peek() == '-';
+        if (negative) {
+            read();
+        }
+        if (peek() < '0' || peek() > '9') {
+            throw error("Expected a number");
+        }
+        long value = 0;
+        while (peek() >= '0' && peek() <= '9') {
+            value = value * 10 + (read() - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw error("Number is too large");
+            }
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (peek() != -1 && Character.isWhitespace(peek())) {
+            read();
+        }
+    }
+
+    private void startToken() {
+        tokenLine = line;
+        tokenColumn = column;
+    }
+
+    private GameFileException error(String message) {
+        return new GameFileException(message, tokenLine, tokenColumn);
+    }
+
+    /**
+     * @return the next byte without consuming it or -1 at the end of input
+     */
+    private int peek() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    /**
+     * @return the next byte or -1 at the end of input
+     */
+    private int read() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        int c = buffer.get() & 0xFF;
+        if (c == '\n') {
+            line++;
+            column = 1;
+        } else {
+            column++;
+        }
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+        if (read < 0) {
+            endOfInput = true;
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,67 @@
+package battleship;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes the text save format read by TextGameParser: the board size when
+ * it is not 10x10, each ship's cells marked true once they have been hit, and
+ * then every other coordinate tried. A ship cell counts as hit when it is
+ * among the moves, so a game can be written from its fleet and moves alone
+ * without a model
+ */
+public final class TextGameWriter {
+
+    private static final String NEW_LINE = System.getProperty("line.separator");
+
+    private TextGameWriter() {
+    }
+
+    /**
+     * @param geometry the width and height of the board
+     * @param fleet the coordinates of each ship
+     * @param moves every move in the order it was played
+     * @param fileName the name of the file to be saved to
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(BoardGeometry geometry, List<List<Coordinates>> fleet, List<Coordinates> moves,
+            String fileName) throws IOException {
+        CellSet tried = CellSet.forGeometry(geometry);
+        for (Coordinates move : moves) {
+            if (geometry.contains(move.getX(), move.getY())) {
+                tried.add(geometry.index(move.getX(), move.getY()));
+            }
+        }
+        CellSet occupied = CellSet.forGeometry(geometry);
+        try (BufferedWriter fileOut = new BufferedWriter(new FileWriter(fileName))) {
+            if (!geometry.equals(BoardGeometry.DEFAULT)) {
+                // boards other than 10x10 record their size before the ships
+                fileOut.write("Board " + geometry.getWidth() + " " + geometry.getHeight() + NEW_LINE);
+            }
+            for (List<Coordinates> position : fleet) {
+                fileOut.write("Ship" + NEW_LINE);
+                for (Coordinates point : position) {
+                    int cell = geometry.index(point.getX(), point.getY());
+                    occupied.add(cell);
+                    writeCell(fileOut, point, tried.contains(cell));
+                }
+                fileOut.write("END" + NEW_LINE);
+            }
+
+            fileOut.write(NEW_LINE + "Coordinates" + NEW_LINE);
+            for (Coordinates move : moves) {
+                // hits are already marked on their ship
+                if (!geometry.contains(move.getX(), move.getY())
+                        || !occupied.contains(geometry.index(move.getX(), move.getY()))) {
+                    writeCell(fileOut, move, false);
+                }
+            }
+        }
+    }
+
+    private static void writeCell(BufferedWriter fileOut, Coordinates point, boolean hit) throws IOException {
+        fileOut.write("( " + point.getX() + " , " + point.getY() + " ) " + hit + NEW_LINE);
+    }
+}
@@ -0,0 +1,94 @@
+package battleship;
+
+import java.util.List;
+
+/**
+ * Zobrist keys of the cells of a board. A position's hash is the XOR of the
+ * keys of its features, so adding or removing one feature is a single XOR.
+ * The keys are the outputs of a SplitMix64 generator with a fixed seed,
+ * worked out when needed rather than stored, so boards of any size cost no
+ * memory and every run of the game gives the same hash for the same
+ * position.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x5DEECE66DL;
+    static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    // features of a cell, each with its own run of keys
+    private static final int MISS = 0, HIT = 1, OCCUPIED = 2, HORIZONTAL_BOW = 3, VERTICAL_BOW = 4;
+    private static final int FEATURES = 5;
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param geometry the width and height of the board
+     * @return hash of an empty board of that size, the starting value of
+     * both the state and the fleet hash
+     */
+    public static long board(BoardGeometry geometry) {
+        return mix(SEED ^ ((long) geometry.getWidth() << 32 | geometry.getHeight()));
+    }
+
+    /**
+     * @param cell index of the cell
+     * @param hit true if the shot hit a ship
+     * @return key of a shot on the cell
+     */
+    public static long shot(int cell, boolean hit) {
+        return key(cell, hit ? HIT : MISS);
+    }
+
+    /**
+     * Key of one ship, made of a key for each cell it covers and one for its
+     * bow, so fleets covering the same cells with different ships hash
+     * differently
+     *
+     * @param geometry the width and height of the board
+     * @param position coordinates of each segment of the ship in order,
+     * segments outside the board are left out as they are on the board
+     * @return key of the ship
+     */
+    public static long ship(BoardGeometry geometry, List<Coordinates> position) {
+        long key = 0;
+        for (Coordinates points : position) {
+            if (geometry.contains(points.getX(), points.getY())) {
+                key ^= key(geometry.index(points.getX(), points.getY()), OCCUPIED);
+            }
+        }
+        if (!position.isEmpty() && geometry.contains(position.get(0).getX(), position.get(0).getY())) {
+            Coordinates bow = position.get(0);
+            boolean vertical = position.size() > 1 && position.get(1).getX() == bow.getX();
+            key ^= key(geometry.index(bow.getX(), bow.getY()), vertical ? VERTICAL_BOW : HORIZONTAL_BOW);
+        }
+        return key;
+    }
+
+    /**
+     * Key of one ship of the given size in a fleet. The keys of a fleet are
+     * added rather than XORed, so two ships of a size do not cancel out. They
+     * come from the same SplitMix64 stream as the cell keys, stepping back
+     * from the seed where the cell keys step forward, so no size shares a
+     * key with any cell
+     *
+     * @param size size of the ship
+     * @return key of the size
+     */
+    public static long shipSize(int size) {
+        return mix(SEED - (size + 1L) * GAMMA);
+    }
+
+    private static long key(int cell, int feature) {
+        return mix(SEED + ((long) cell * FEATURES + feature + 1) * GAMMA);
+    }
+
+    /**
+     * SplitMix64 finaliser
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,55 @@
+package battleship;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Attacks every cell of the benchmark board once per invocation, on a fresh
+ * fleet each time
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AttackBenchmark {
+
+    @Param({"5", "20", "80"})
+    public int fleetSize;
+
+    private final BattleShipModel model = new BattleShipModel();
+    private Coordinates[] cells;
+
+    @Setup(Level.Trial)
+    public void shuffle() {
+        cells = Fixtures.shuffledCells(1);
+    }
+
+    @Setup(Level.Invocation)
+    public void newFleet() {
+        model.initialise(Fixtures.fleet(fleetSize), Fixtures.GEOMETRY);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Fixtures.CELLS)
+    public int attack() {
+        int hits = 0;
+        for (Coordinates cell : cells) {
+            hits += model.attack(cell) ? 1 : 0;
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,74 @@
+package battleship;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Asks the controller whether the game is won for each fleet size, and
+ * whether every cell has been tried for each length of move history
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerBenchmark {
+
+    @State(Scope.Thread)
+    public static class Fleet {
+
+        @Param({"5", "20", "80"})
+        public int fleetSize;
+
+        private BattleShipController controller;
+
+        @Setup
+        public void place() {
+            BattleShipModel model = new BattleShipModel();
+            model.initialise(Fixtures.fleet(fleetSize), Fixtures.GEOMETRY, 1);
+            controller = new BattleShipController(model);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class History {
+
+        @Param({"10", "100", "1000"})
+        public int history;
+
+        private BattleShipController controller;
+        private Coordinates[] cells;
+
+        @Setup
+        public void play() {
+            controller = new BattleShipController(Fixtures.playedGame(history));
+            cells = Fixtures.shuffledCells(3);
+        }
+    }
+
+    @Benchmark
+    public boolean winGame(Fleet state) {
+        return state.controller.winGame();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Fixtures.CELLS)
+    public int positionTried(History state) {
+        int tried = 0;
+        for (Coordinates cell : state.cells) {
+            tried += state.controller.positionTried(cell) ? 1 : 0;
+        }
+        return tried;
+    }
+}
@@ -0,0 +1,76 @@
+package battleship;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Boards, fleets and played games shared by the benchmarks
+ */
+final class Fixtures {
+
+    // every fleet size and history length is measured on the same board
+    static final BoardGeometry GEOMETRY = new BoardGeometry(40, 40);
+    static final int CELLS = 40 * 40;
+
+    private Fixtures() {
+    }
+
+    /**
+     * @return sizes of a fleet of the given number of ships, cycling through
+     * lengths 2 to 5
+     */
+    static int[] fleet(int fleetSize) {
+        int[] sizes = new int[fleetSize];
+        for (int i = 0; i < fleetSize; i++) {
+            sizes[i] = 2 + i % 4;
+        }
+        return sizes;
+    }
+
+    /**
+     * @return every cell of the benchmark board in an order fixed by the seed
+     */
+    static Coordinates[] shuffledCells(long seed) {
+        List<Coordinates> cells = new ArrayList<>();
+        for (int cell = 0; cell < GEOMETRY.getCells(); cell++) {
+            cells.add(Coordinates.of(GEOMETRY, cell));
+        }
+        Collections.shuffle(cells, new Random(seed));
+        return cells.toArray(new Coordinates[0]);
+    }
+
+    /**
+     * @return a model on the benchmark board with the given number of moves
+     * already played
+     */
+    static BattleShipModel playedGame(int history) {
+        BattleShipModel model = new BattleShipModel();
+        model.initialise(fleet(5), GEOMETRY, 1);
+        Coordinates[] cells = shuffledCells(2);
+        for (int i = 0; i < history; i++) {
+            model.attack(cells[i]);
+        }
+        return model;
+    }
+
+    /**
+     * @param extension extension of the save format, such as .txt
+     * @return a new temporary file, deleted when the benchmark exits, so
+     * saving never overwrites the player's myfile.txt
+     */
+    static Path temporarySave(String extension) {
+        try {
+            Path file = Files.createTempFile("battleship-benchmark", extension);
+            file.toFile().deleteOnExit();
+            return file;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
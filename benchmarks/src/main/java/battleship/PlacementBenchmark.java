@@ -0,0 +1,63 @@
+package battleship;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Places one ship among a fleet already on the board, and places whole
+ * fleets for both types of game
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlacementBenchmark {
+
+    @State(Scope.Thread)
+    public static class PlacedShips {
+
+        @Param({"5", "20", "80"})
+        public int shipsPlaced;
+
+        private final BattleShipModel model = new BattleShipModel();
+
+        @Setup
+        public void place() {
+            model.initialise(Fixtures.fleet(shipsPlaced), Fixtures.GEOMETRY, 1);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class GameType {
+
+        // 1 for the default fleet, 2 for a random fleet
+        @Param({"1", "2"})
+        public int typeOfGame;
+
+        private final BattleShipModel model = new BattleShipModel();
+    }
+
+    @Benchmark
+    public Ship setPosition(PlacedShips state) {
+        Ship ship = new Ship(3);
+        ship.setPosition(Fixtures.GEOMETRY, state.model.getShipList());
+        return ship;
+    }
+
+    @Benchmark
+    public BattleShipModel createShips(GameType state) {
+        state.model.initialise(state.typeOfGame, BoardGeometry.DEFAULT);
+        return state.model;
+    }
+}
@@ -0,0 +1,102 @@
+package battleship;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Saves and loads a game for each length of move history and each save
+ * format, through the controller and its persistence thread as the CLI and
+ * GUI do, and straight through the model on the calling thread. Saves go
+ * to temporary files, never to the player's myfile.txt
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SaveLoadBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int history;
+
+    @Param({".txt", ".bsg"})
+    public String format;
+
+    private BattleShipModel model;
+    private BattleShipController controller;
+    private String saveFile;
+    private String loadFile;
+
+    @Setup
+    public void play() {
+        model = Fixtures.playedGame(history);
+        controller = new BattleShipController(model);
+        saveFile = Fixtures.temporarySave(format).toString();
+        loadFile = Fixtures.temporarySave(format).toString();
+        if (!controller.saveGame(loadFile)) {
+            throw new IllegalStateException("Could not write " + loadFile);
+        }
+    }
+
+    @TearDown
+    public void shutdown() {
+        controller.shutdown();
+    }
+
+    /**
+     * Snapshot, queue and write the game on the persistence thread, waiting
+     * until it is written
+     */
+    @Benchmark
+    public boolean saveGame() {
+        return controller.saveGame(saveFile);
+    }
+
+    /**
+     * Read the game on the persistence thread and restore it into the model,
+     * waiting until it is restored
+     */
+    @Benchmark
+    public boolean loadGame() {
+        return controller.loadGame(loadFile);
+    }
+
+    /**
+     * Write the file straight from the model on this thread
+     */
+    @Benchmark
+    public BattleShipModel writeFile() throws IOException {
+        if (format.equals(BinaryGameFormat.EXTENSION)) {
+            model.saveBinary(saveFile);
+        } else {
+            model.writeGame(saveFile);
+        }
+        return model;
+    }
+
+    /**
+     * Read the file straight into the model on this thread
+     */
+    @Benchmark
+    public BattleShipModel readFile() throws IOException {
+        if (format.equals(BinaryGameFormat.EXTENSION)) {
+            model.loadBinary(loadFile);
+        } else {
+            model.loadGame(loadFile);
+        }
+        return model;
+    }
+}